@@ -0,0 +1,93 @@
+package com.openclassrooms.starterjwt.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import com.openclassrooms.starterjwt.security.jwt.JwtClaims;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.Caching;
+import java.net.URI;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-process caches. Each cache is bounded and expires according to its Caffeine spec in application.properties.
+ * The Hibernate second-level cache regions are configured separately, in application.conf.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+    public static final String PRINCIPALS = "principals";
+
+    public static final String TOKENS = "tokens";
+
+    public static final String TEACHERS = "teachers";
+
+    @Value("${oc.app.cache.principals}")
+    private String principalsSpec;
+
+    @Value("${oc.app.cache.tokens}")
+    private String tokensSpec;
+
+    @Value("${oc.app.cache.teachers}")
+    private String teachersSpec;
+
+    @Bean
+    public CacheManager cacheManager() {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+        cacheManager.setCacheNames(Collections.emptyList());
+        cacheManager.registerCustomCache(PRINCIPALS, Caffeine.from(principalsSpec).build());
+        cacheManager.registerCustomCache(TOKENS, Caffeine.from(tokensSpec).expireAfter(expireAtTokenExpiry()).build());
+        cacheManager.registerCustomCache(TEACHERS, Caffeine.from(teachersSpec).build());
+        return cacheManager;
+    }
+
+    /**
+     * Gives the Hibernate second-level cache a JCache manager of its own. The Caffeine provider otherwise shares one
+     * manager per class loader, and closing one application context (tests, benchmarks) would close the regions of
+     * every other context running in the same JVM.
+     */
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheManager() {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER,
+                Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                        .getCacheManager(URI.create("hibernate:" + UUID.randomUUID()), getClass().getClassLoader()));
+    }
+
+    /**
+     * Verified tokens are dropped when the token itself expires, so the spec must not set its own expiry.
+     */
+    static Expiry<Object, Object> expireAtTokenExpiry() {
+        return new Expiry<Object, Object>() {
+            @Override
+            public long expireAfterCreate(Object key, Object value, long currentTime) {
+                if (!(value instanceof JwtClaims claims) || claims.expiration() == null) {
+                    return 0;
+                }
+                long millis = Instant.now().until(claims.expiration(), ChronoUnit.MILLIS);
+                return TimeUnit.MILLISECONDS.toNanos(Math.max(0, millis));
+            }
+
+            @Override
+            public long expireAfterUpdate(Object key, Object value, long currentTime, long currentDuration) {
+                return expireAfterCreate(key, value, currentTime);
+            }
+
+            @Override
+            public long expireAfterRead(Object key, Object value, long currentTime, long currentDuration) {
+                return currentDuration;
+            }
+        };
+    }
+}
@@ -0,0 +1,38 @@
+package com.openclassrooms.starterjwt.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.scheduling.annotation.AsyncAnnotationBeanPostProcessor;
+
+import java.util.concurrent.Executors;
+
+/**
+ * Serves requests on virtual threads instead of the fixed Tomcat worker pool when {@code oc.app.virtualThreads} is
+ * set. Requests are then no longer bounded by {@code server.tomcat.threads.max}; database concurrency is bounded by
+ * the Hikari pool, whose callers wait up to {@code connection-timeout} for a connection. The MySQL driver guards its
+ * I/O with locks rather than {@code synchronized} since Connector/J 9.0, so a virtual thread blocked on a query does
+ * not pin its carrier thread.
+ */
+@Configuration
+@ConditionalOnProperty(name = "oc.app.virtualThreads", havingValue = "true")
+public class VirtualThreadConfig {
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandler() {
+        return protocolHandler -> protocolHandler.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+    }
+
+    /**
+     * Runs asynchronous request processing and {@code @Async} methods on virtual threads as well.
+     */
+    @Bean(name = {TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME,
+            AsyncAnnotationBeanPostProcessor.DEFAULT_TASK_EXECUTOR_BEAN_NAME})
+    public AsyncTaskExecutor applicationTaskExecutor() {
+        return new TaskExecutorAdapter(Executors.newVirtualThreadPerTaskExecutor());
+    }
+}
@@ -1,16 +1,31 @@
 package com.openclassrooms.starterjwt.controllers;
 
-
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openclassrooms.starterjwt.dto.ResourceVersion;
+import com.openclassrooms.starterjwt.dto.SessionCursor;
 import com.openclassrooms.starterjwt.dto.SessionDto;
+import com.openclassrooms.starterjwt.dto.SessionImportResult;
+import com.openclassrooms.starterjwt.dto.SessionPageDto;
 import com.openclassrooms.starterjwt.mapper.SessionMapper;
 import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.payload.request.ParticipantsRequest;
+import com.openclassrooms.starterjwt.services.SessionImportService;
 import com.openclassrooms.starterjwt.services.SessionService;
 import lombok.extern.log4j.Log4j2;
+import org.springframework.data.domain.Slice;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.Valid;
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 @CrossOrigin(origins = "*", maxAge = 3600)
 @RestController
@@ -19,16 +34,22 @@ import java.util.List;
 public class SessionController {
     private final SessionMapper sessionMapper;
     private final SessionService sessionService;
+    private final SessionImportService sessionImportService;
+    private final ObjectMapper objectMapper;
 
 
     public SessionController(SessionService sessionService,
-                             SessionMapper sessionMapper) {
+                             SessionImportService sessionImportService,
+                             SessionMapper sessionMapper,
+                             ObjectMapper objectMapper) {
         this.sessionMapper = sessionMapper;
         this.sessionService = sessionService;
+        this.sessionImportService = sessionImportService;
+        this.objectMapper = objectMapper;
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<?> findById(@PathVariable("id") String id) {
+    public ResponseEntity<?> findById(@PathVariable("id") String id, WebRequest request) {
         try {
             Session session = this.sessionService.getById(Long.valueOf(id));
 
@@ -36,17 +57,69 @@ public class SessionController {
                 return ResponseEntity.notFound().build();
             }
 
-            return ResponseEntity.ok().body(this.sessionMapper.toDto(session));
+            // The version changes with every write, possibly within the second of the previous update
+            if (ResourceVersion.of(session.getUpdatedAt(), session.getId(), session.getVersion()).isNotModified(request)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+            }
+
+            Map<Long, List<Long>> participants = this.sessionService.findParticipantIds(List.of(session.getId()));
+
+            return ResponseEntity.ok().body(this.sessionMapper.toDto(session, participants));
         } catch (NumberFormatException e) {
             return ResponseEntity.badRequest().build();
         }
     }
 
     @GetMapping()
-    public ResponseEntity<?> findAll() {
+    public ResponseEntity<?> findAll(WebRequest request) {
+        if (this.sessionService.findAllVersion().isNotModified(request)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+        }
+
         List<Session> sessions = this.sessionService.findAll();
+        Map<Long, List<Long>> participants = this.sessionService.findParticipantIds();
+
+        return ResponseEntity.ok().body(this.sessionMapper.toDto(sessions, participants));
+    }
 
-        return ResponseEntity.ok().body(this.sessionMapper.toDto(sessions));
+    @GetMapping("/page")
+    public ResponseEntity<?> findPage(@RequestParam(value = "cursor", required = false) String cursor,
+                                      @RequestParam(value = "size", defaultValue = "20") int size,
+                                      @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Date from,
+                                      @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Date to,
+                                      @RequestParam(value = "teacherId", required = false) Long teacherId) {
+        SessionCursor after = cursor != null ? SessionCursor.decode(cursor) : null;
+        Slice<Session> page = this.sessionService.findPage(teacherId, from, to, after, size);
+
+        String nextCursor = null;
+        if (page.hasNext()) {
+            Session last = page.getContent().get(page.getNumberOfElements() - 1);
+            nextCursor = new SessionCursor(last.getDate(), last.getId()).encode();
+        }
+
+        Map<Long, List<Long>> participants = this.sessionService.findParticipantIds(
+                page.getContent().stream().map(Session::getId).collect(Collectors.toList()));
+
+        return ResponseEntity.ok().body(new SessionPageDto(this.sessionMapper.toDto(page.getContent(), participants), nextCursor));
+    }
+
+    /**
+     * Writes the matching sessions as newline-delimited JSON while they are read, one page at a time, and flushes
+     * every page, so the first sessions reach the client before the last ones are read.
+     */
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> stream(@RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Date from,
+                                                        @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Date to,
+                                                        @RequestParam(value = "teacherId", required = false) Long teacherId) {
+        StreamingResponseBody body = outputStream -> this.sessionService.forEachPage(teacherId, from, to, (sessions, participants) -> {
+            for (Session session : sessions) {
+                outputStream.write(this.objectMapper.writeValueAsBytes(this.sessionMapper.toDto(session, participants)));
+                outputStream.write('\n');
+            }
+            outputStream.flush();
+        });
+
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
     }
 
     @PostMapping()
@@ -59,6 +132,22 @@ public class SessionController {
         return ResponseEntity.ok().body(this.sessionMapper.toDto(session));
     }
 
+    /**
+     * Creates every session of a JSON array, or none of them and returns the errors of each invalid row.
+     */
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> createAll(@RequestBody List<SessionDto> sessionDtos) {
+        return imported(this.sessionImportService.importSessions(sessionDtos));
+    }
+
+    /**
+     * Same as {@link #createAll} for a CSV file with a header row.
+     */
+    @PostMapping(value = "/bulk", consumes = "text/csv")
+    public ResponseEntity<?> importCsv(@RequestBody String csv) {
+        return imported(this.sessionImportService.importCsv(csv));
+    }
+
     @PutMapping("{id}")
     public ResponseEntity<?> update(@PathVariable("id") String id, @Valid @RequestBody SessionDto sessionDto) {
         try {
@@ -107,4 +196,29 @@ public class SessionController {
             return ResponseEntity.badRequest().build();
         }
     }
+
+    @PostMapping("{id}/participate")
+    public ResponseEntity<?> participateAll(@PathVariable("id") String id, @Valid @RequestBody ParticipantsRequest request) {
+        try {
+            return ResponseEntity.ok().body(this.sessionService.participateAll(Long.parseLong(id), request.getUserIds()));
+        } catch (NumberFormatException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @DeleteMapping("{id}/participate")
+    public ResponseEntity<?> noLongerParticipateAll(@PathVariable("id") String id, @Valid @RequestBody ParticipantsRequest request) {
+        try {
+            return ResponseEntity.ok().body(this.sessionService.noLongerParticipateAll(Long.parseLong(id), request.getUserIds()));
+        } catch (NumberFormatException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    private static ResponseEntity<?> imported(SessionImportResult result) {
+        if (!result.getErrors().isEmpty()) {
+            return ResponseEntity.badRequest().body(result);
+        }
+        return ResponseEntity.ok().body(result);
+    }
 }
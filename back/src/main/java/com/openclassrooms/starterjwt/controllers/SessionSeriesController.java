@@ -0,0 +1,63 @@
+package com.openclassrooms.starterjwt.controllers;
+
+import com.openclassrooms.starterjwt.dto.SessionSeriesDto;
+import com.openclassrooms.starterjwt.mapper.SessionSeriesMapper;
+import com.openclassrooms.starterjwt.models.SessionSeries;
+import com.openclassrooms.starterjwt.services.SessionSeriesService;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import javax.validation.Valid;
+import java.util.Date;
+
+@CrossOrigin(origins = "*", maxAge = 3600)
+@RestController
+@RequestMapping("/api/series")
+@Log4j2
+public class SessionSeriesController {
+    private final SessionSeriesMapper sessionSeriesMapper;
+    private final SessionSeriesService sessionSeriesService;
+
+
+    public SessionSeriesController(SessionSeriesService sessionSeriesService,
+                                   SessionSeriesMapper sessionSeriesMapper) {
+        this.sessionSeriesMapper = sessionSeriesMapper;
+        this.sessionSeriesService = sessionSeriesService;
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<?> findById(@PathVariable("id") String id) {
+        try {
+            SessionSeries series = this.sessionSeriesService.getById(Long.valueOf(id));
+
+            if (series == null) {
+                return ResponseEntity.notFound().build();
+            }
+
+            return ResponseEntity.ok().body(this.sessionSeriesMapper.toDto(series));
+        } catch (NumberFormatException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Sessions and not yet materialized occurrences of the series in [from, to), ordered by date.
+     */
+    @GetMapping("/occurrences")
+    public ResponseEntity<?> findOccurrences(@RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Date from,
+                                             @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Date to,
+                                             @RequestParam(value = "teacherId", required = false) Long teacherId) {
+        return ResponseEntity.ok().body(this.sessionSeriesService.findOccurrences(teacherId, from, to));
+    }
+
+    @PostMapping()
+    public ResponseEntity<?> create(@Valid @RequestBody SessionSeriesDto sessionSeriesDto) {
+        log.info(sessionSeriesDto);
+
+        SessionSeries series = this.sessionSeriesService.create(this.sessionSeriesMapper.toEntity(sessionSeriesDto));
+
+        return ResponseEntity.ok().body(this.sessionSeriesMapper.toDto(series));
+    }
+}
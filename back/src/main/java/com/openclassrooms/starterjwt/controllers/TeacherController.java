@@ -1,11 +1,18 @@
 package com.openclassrooms.starterjwt.controllers;
 
+import com.openclassrooms.starterjwt.dto.ResourceVersion;
 import com.openclassrooms.starterjwt.mapper.TeacherMapper;
 import com.openclassrooms.starterjwt.models.Teacher;
 import com.openclassrooms.starterjwt.services.TeacherService;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Objects;
 
 @CrossOrigin(origins = "*", maxAge = 3600)
 @RestController
@@ -22,7 +29,7 @@ public class TeacherController {
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<?> findById(@PathVariable("id") String id) {
+    public ResponseEntity<?> findById(@PathVariable("id") String id, WebRequest request) {
         try {
             Teacher teacher = this.teacherService.findById(Long.valueOf(id));
 
@@ -30,6 +37,10 @@ public class TeacherController {
                 return ResponseEntity.notFound().build();
             }
 
+            if (ResourceVersion.of(teacher.getUpdatedAt(), teacher.getId(), teacher.getVersion()).isNotModified(request)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+            }
+
             return ResponseEntity.ok().body(this.teacherMapper.toDto(teacher));
         } catch (NumberFormatException e) {
             return ResponseEntity.badRequest().build();
@@ -37,9 +48,22 @@ public class TeacherController {
     }
 
     @GetMapping()
-    public ResponseEntity<?> findAll() {
+    public ResponseEntity<?> findAll(WebRequest request) {
         List<Teacher> teachers = this.teacherService.findAll();
 
+        // The teacher list is served from the cache, so its version is aggregated from the entities themselves,
+        // the same way SessionRepository.findVersion aggregates the sessions
+        LocalDateTime updatedAt = teachers.stream()
+                .map(Teacher::getUpdatedAt)
+                .filter(Objects::nonNull)
+                .max(Comparator.naturalOrder())
+                .orElse(null);
+        long idSum = teachers.stream().map(Teacher::getId).filter(Objects::nonNull).mapToLong(Long::longValue).sum();
+        long versionSum = teachers.stream().map(Teacher::getVersion).filter(Objects::nonNull).mapToLong(Long::longValue).sum();
+        if (ResourceVersion.of(updatedAt, teachers.size(), idSum, versionSum).isNotModified(request)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).build();
+        }
+
         return ResponseEntity.ok().body(this.teacherMapper.toDto(teachers));
     }
 }
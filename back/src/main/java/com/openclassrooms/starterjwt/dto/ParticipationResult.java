@@ -0,0 +1,22 @@
+package com.openclassrooms.starterjwt.dto;
+
+import lombok.Value;
+
+/**
+ * Outcome of a bulk participation change for one user.
+ */
+@Value
+public class ParticipationResult {
+    Long userId;
+
+    Outcome outcome;
+
+    public enum Outcome {
+        ENROLLED,
+        UNENROLLED,
+        ALREADY_PARTICIPATING,
+        NOT_PARTICIPATING,
+        SESSION_FULL,
+        USER_NOT_FOUND
+    }
+}
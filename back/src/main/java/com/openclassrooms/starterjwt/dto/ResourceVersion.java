@@ -0,0 +1,40 @@
+package com.openclassrooms.starterjwt.dto;
+
+import lombok.Value;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.context.request.WebRequest;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+/**
+ * Validators of a representation: a strong ETag hashed from the state it is rendered from, and its last modification date.
+ */
+@Value
+public class ResourceVersion {
+    String eTag;
+
+    long lastModified;
+
+    /**
+     * Version of a representation last modified at {@code updatedAt}, which may be null, and whose content also
+     * depends on {@code state} (ids, counters) that can change within the one-second precision of the timestamp.
+     */
+    public static ResourceVersion of(LocalDateTime updatedAt, Object... state) {
+        long lastModified = updatedAt != null ? updatedAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : -1;
+        String raw = lastModified + ":" + Arrays.stream(state).map(String::valueOf).collect(Collectors.joining(":"));
+
+        return new ResourceVersion("\"" + DigestUtils.md5DigestAsHex(raw.getBytes(StandardCharsets.UTF_8)) + "\"", lastModified);
+    }
+
+    /**
+     * Checks the request preconditions against this version. When it returns true the response is already a 304
+     * and nothing else must be written; otherwise the ETag and Last-Modified headers have been set.
+     */
+    public boolean isNotModified(WebRequest request) {
+        return request.checkNotModified(this.eTag, this.lastModified);
+    }
+}
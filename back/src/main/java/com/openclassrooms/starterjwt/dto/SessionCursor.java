@@ -0,0 +1,38 @@
+package com.openclassrooms.starterjwt.dto;
+
+import com.openclassrooms.starterjwt.exception.BadRequestException;
+import lombok.Value;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+
+/**
+ * Position of a session in the (date, id) ordering, exchanged with clients as an opaque token.
+ */
+@Value
+public class SessionCursor {
+    Date date;
+
+    Long id;
+
+    public String encode() {
+        String raw = this.date.getTime() + ":" + this.id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static SessionCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(':');
+            if (separator < 0) {
+                throw new BadRequestException();
+            }
+
+            return new SessionCursor(new Date(Long.parseLong(raw.substring(0, separator))),
+                    Long.valueOf(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException();
+        }
+    }
+}
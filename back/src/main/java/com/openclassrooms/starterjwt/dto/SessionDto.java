@@ -4,6 +4,7 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import javax.validation.constraints.Min;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Size;
@@ -31,8 +32,13 @@ public class SessionDto {
     @Size(max = 2500)
     private String description;
 
+    @Min(1)
+    private Integer capacity;
+
     private List<Long> users;
 
+    private Long series_id;
+
     private LocalDateTime createdAt;
 
     private LocalDateTime updatedAt;
@@ -0,0 +1,27 @@
+package com.openclassrooms.starterjwt.dto;
+
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk session import: either every session was created, or none was and every invalid row is listed.
+ */
+@Value
+public class SessionImportResult {
+    int created;
+
+    List<Long> ids;
+
+    List<RowError> errors;
+
+    /**
+     * Errors of one row, numbered from 1 in the order the sessions were submitted.
+     */
+    @Value
+    public static class RowError {
+        int row;
+
+        List<String> messages;
+    }
+}
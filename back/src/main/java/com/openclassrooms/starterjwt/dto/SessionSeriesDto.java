@@ -0,0 +1,65 @@
+package com.openclassrooms.starterjwt.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.util.Date;
+import java.util.Set;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SessionSeriesDto {
+    public static final int MAX_COUNT = 1000;
+
+    private Long id;
+
+    @NotBlank
+    @Size(max = 50)
+    private String name;
+
+    @NotNull
+    private Long teacher_id;
+
+    @NotNull
+    @Size(max = 2500)
+    private String description;
+
+    @Min(1)
+    private Integer capacity;
+
+    @NotNull
+    private Date start;
+
+    /**
+     * Time zone of the days and of the time of day, the server zone when absent.
+     */
+    private String zone;
+
+    @NotEmpty
+    private Set<@NotNull DayOfWeek> days;
+
+    /**
+     * Number of occurrences. At most one of count and until is set; without either the series never ends.
+     */
+    @Min(1)
+    @Max(MAX_COUNT)
+    private Integer count;
+
+    private Date until;
+
+    private Date materializedUntil;
+
+    private LocalDateTime createdAt;
+
+    private LocalDateTime updatedAt;
+}
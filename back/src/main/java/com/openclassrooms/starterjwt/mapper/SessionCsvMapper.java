@@ -0,0 +1,140 @@
+package com.openclassrooms.starterjwt.mapper;
+
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openclassrooms.starterjwt.dto.SessionDto;
+import com.openclassrooms.starterjwt.dto.SessionImportResult;
+import com.openclassrooms.starterjwt.exception.BadRequestException;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Reads sessions from CSV: a header row naming the columns, in any order, then one session per row. Quoted fields
+ * follow RFC 4180. Values are converted exactly as the same fields of a JSON {@link SessionDto}, so dates may be
+ * written {@code 2024-01-15} or {@code 2024-01-15T09:30:00Z}.
+ */
+@Component
+public class SessionCsvMapper {
+    public static final Set<String> COLUMNS = Set.of("name", "date", "teacher_id", "description", "capacity");
+
+    public static final Set<String> REQUIRED_COLUMNS = Set.of("name", "date", "teacher_id", "description");
+
+    private final ObjectMapper objectMapper;
+
+    public SessionCsvMapper(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Maps every data row to a session. A row that cannot be read is null in the returned list and its error is added
+     * to {@code errors}. A missing required column, or an unknown or repeated one, in the header rejects the whole file.
+     */
+    public List<SessionDto> toDtos(String csv, List<SessionImportResult.RowError> errors) {
+        List<List<String>> records = parse(csv.startsWith("\uFEFF") ? csv.substring(1) : csv);
+        if (records.isEmpty()) {
+            throw new BadRequestException();
+        }
+
+        List<String> header = new ArrayList<>();
+        for (String column : records.get(0)) {
+            String name = column.trim().toLowerCase(Locale.ROOT);
+            if (!COLUMNS.contains(name) || header.contains(name)) {
+                throw new BadRequestException();
+            }
+            header.add(name);
+        }
+        if (!header.containsAll(REQUIRED_COLUMNS)) {
+            throw new BadRequestException();
+        }
+
+        List<SessionDto> sessions = new ArrayList<>();
+        for (int i = 1; i < records.size(); i++) {
+            List<String> record = records.get(i);
+            if (record.size() != header.size()) {
+                errors.add(new SessionImportResult.RowError(i, List.of(
+                        String.format("expected %d fields, found %d", header.size(), record.size()))));
+                sessions.add(null);
+                continue;
+            }
+
+            Map<String, String> fields = new HashMap<>();
+            for (int column = 0; column < header.size(); column++) {
+                if (!record.get(column).isBlank()) {
+                    fields.put(header.get(column), record.get(column).trim());
+                }
+            }
+            try {
+                sessions.add(this.objectMapper.convertValue(fields, SessionDto.class));
+            } catch (IllegalArgumentException e) {
+                errors.add(new SessionImportResult.RowError(i, List.of(invalidValue(e, fields))));
+                sessions.add(null);
+            }
+        }
+        return sessions;
+    }
+
+    private static String invalidValue(IllegalArgumentException e, Map<String, String> fields) {
+        if (e.getCause() instanceof JsonMappingException cause && !cause.getPath().isEmpty()) {
+            String field = cause.getPath().get(cause.getPath().size() - 1).getFieldName();
+            return String.format("%s: invalid value '%s'", field, fields.get(field));
+        }
+        return "invalid row";
+    }
+
+    /**
+     * Splits the text into records of fields. Blank lines are skipped.
+     */
+    static List<List<String>> parse(String csv) {
+        List<List<String>> records = new ArrayList<>();
+        List<String> record = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+
+        for (int i = 0; i < csv.length(); i++) {
+            char c = csv.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i + 1 < csv.length() && csv.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                record.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n' || c == '\r') {
+                if (c == '\r' && i + 1 < csv.length() && csv.charAt(i + 1) == '\n') {
+                    i++;
+                }
+                endRecord(records, record, field);
+                record = new ArrayList<>();
+            } else {
+                field.append(c);
+            }
+        }
+
+        if (quoted) {
+            throw new BadRequestException();
+        }
+        endRecord(records, record, field);
+        return records;
+    }
+
+    private static void endRecord(List<List<String>> records, List<String> record, StringBuilder field) {
+        record.add(field.toString());
+        field.setLength(0);
+        if (record.size() > 1 || !record.get(0).isBlank()) {
+            records.add(record);
+        }
+    }
+}
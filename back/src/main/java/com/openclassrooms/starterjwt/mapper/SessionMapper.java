@@ -8,16 +8,20 @@ import com.openclassrooms.starterjwt.services.UserService;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 import org.mapstruct.Mappings;
+import org.mapstruct.Named;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
 @Component
-@Mapper(componentModel = "spring", uses = {UserService.class}, imports = {Arrays.class, Collectors.class, Session.class, User.class, Collections.class, Optional.class})
+@Mapper(componentModel = "spring", uses = {UserService.class}, imports = {ArrayList.class, Arrays.class, Collectors.class, Session.class, User.class, Collections.class, Optional.class})
 public abstract class SessionMapper implements EntityMapper<SessionDto, Session> {
 
     @Autowired
@@ -28,7 +32,10 @@ public abstract class SessionMapper implements EntityMapper<SessionDto, Session>
     @Mappings({
             @Mapping(source = "description", target = "description"),
             @Mapping(target = "teacher", expression = "java(sessionDto.getTeacher_id() != null ? this.teacherService.findById(sessionDto.getTeacher_id()) : null)"),
-            @Mapping(target = "users", expression = "java(Optional.ofNullable(sessionDto.getUsers()).orElseGet(Collections::emptyList).stream().map(user_id -> { User user = this.userService.findById(user_id); if (user != null) { return user; } return null; }).collect(Collectors.toList()))"),
+            @Mapping(target = "participantCount", ignore = true),
+            @Mapping(target = "version", ignore = true),
+            @Mapping(target = "seriesId", ignore = true),
+            @Mapping(target = "users", expression = "java(new ArrayList<>(this.userService.findAllById(Optional.ofNullable(sessionDto.getUsers()).orElseGet(Collections::emptyList))))"),
     })
     public abstract Session toEntity(SessionDto sessionDto);
 
@@ -36,7 +43,30 @@ public abstract class SessionMapper implements EntityMapper<SessionDto, Session>
     @Mappings({
             @Mapping(source = "description", target = "description"),
             @Mapping(source = "session.teacher.id", target = "teacher_id"),
+            @Mapping(source = "seriesId", target = "series_id"),
             @Mapping(target = "users", expression = "java(Optional.ofNullable(session.getUsers()).orElseGet(Collections::emptyList).stream().map(u -> u.getId()).collect(Collectors.toList()))"),
     })
     public abstract SessionDto toDto(Session session);
+
+    @Named("withoutUsers")
+    @Mappings({
+            @Mapping(source = "description", target = "description"),
+            @Mapping(source = "session.teacher.id", target = "teacher_id"),
+            @Mapping(source = "seriesId", target = "series_id"),
+            @Mapping(target = "users", ignore = true),
+    })
+    public abstract SessionDto toDtoWithoutUsers(Session session);
+
+    /**
+     * Maps a session whose participants were read separately, so the lazy users collection is never loaded.
+     */
+    public SessionDto toDto(Session session, Map<Long, List<Long>> participants) {
+        SessionDto sessionDto = toDtoWithoutUsers(session);
+        sessionDto.setUsers(participants.getOrDefault(session.getId(), Collections.emptyList()));
+        return sessionDto;
+    }
+
+    public List<SessionDto> toDto(List<Session> sessions, Map<Long, List<Long>> participants) {
+        return sessions.stream().map(session -> toDto(session, participants)).collect(Collectors.toList());
+    }
 }
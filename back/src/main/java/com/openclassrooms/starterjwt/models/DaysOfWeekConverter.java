@@ -0,0 +1,34 @@
+package com.openclassrooms.starterjwt.models;
+
+import javax.persistence.AttributeConverter;
+import javax.persistence.Converter;
+import java.time.DayOfWeek;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Stores days of the week as a comma-separated list of their names, such as {@code MONDAY,WEDNESDAY}.
+ */
+@Converter
+public class DaysOfWeekConverter implements AttributeConverter<Set<DayOfWeek>, String> {
+
+    @Override
+    public String convertToDatabaseColumn(Set<DayOfWeek> days) {
+        if (days == null) {
+            return null;
+        }
+        return days.stream().sorted().map(DayOfWeek::name).collect(Collectors.joining(","));
+    }
+
+    @Override
+    public Set<DayOfWeek> convertToEntityAttribute(String column) {
+        if (column == null) {
+            return null;
+        }
+        Set<DayOfWeek> days = EnumSet.noneOf(DayOfWeek.class);
+        Arrays.stream(column.split(",")).filter(day -> !day.isEmpty()).map(DayOfWeek::valueOf).forEach(days::add);
+        return days;
+    }
+}
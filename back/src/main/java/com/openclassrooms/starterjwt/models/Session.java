@@ -3,11 +3,17 @@ package com.openclassrooms.starterjwt.models;
 
 import lombok.*;
 import lombok.experimental.Accessors;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 import org.hibernate.annotations.UpdateTimestamp;
+import org.hibernate.id.enhanced.TableGenerator;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
 import javax.persistence.*;
+import javax.validation.constraints.Min;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Size;
@@ -16,6 +22,8 @@ import java.util.Date;
 import java.util.List;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "sessions")
 @Table(name = "SESSIONS")
 @EntityListeners(AuditingEntityListener.class)
 @Data
@@ -26,8 +34,18 @@ import java.util.List;
 @AllArgsConstructor
 @ToString
 public class Session {
+    /**
+     * Allocated in blocks from the ID_GENERATORS table rather than by AUTO_INCREMENT, so that Hibernate knows the id
+     * before the insert and can batch session inserts.
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(generator = "session_id")
+    @GenericGenerator(name = "session_id", strategy = "org.hibernate.id.enhanced.TableGenerator", parameters = {
+            @Parameter(name = TableGenerator.TABLE_PARAM, value = "ID_GENERATORS"),
+            @Parameter(name = TableGenerator.SEGMENT_VALUE_PARAM, value = "sessions"),
+            @Parameter(name = TableGenerator.INCREMENT_PARAM, value = "50"),
+            @Parameter(name = TableGenerator.OPT_PARAM, value = "pooled-lo")
+    })
     private Long id;
 
     @NotBlank
@@ -45,7 +63,34 @@ public class Session {
     @JoinColumn(name = "teacher_id", referencedColumnName = "id")
     private Teacher teacher;
 
-    @ManyToMany(fetch = FetchType.EAGER)
+    @Min(1)
+    private Integer capacity;
+
+    /**
+     * Series this session is an occurrence of, if any.
+     */
+    @Column(name = "series_id")
+    private Long seriesId;
+
+    /**
+     * Seat counter maintained by {@code SessionRepository} with atomic updates, never written from the entity.
+     */
+    @Column(name = "participant_count", insertable = false, updatable = false)
+    private Integer participantCount;
+
+    /**
+     * Bumped by {@code SessionRepository} on every write of the session or of its participants, never written from
+     * the entity. The ETag of the session is derived from it.
+     */
+    @Column(name = "version", insertable = false, updatable = false)
+    private Long version;
+
+    /**
+     * Cached in a region of its own. {@code SessionService} evicts the entry of a session whose participants it writes
+     * with native queries.
+     */
+    @ManyToMany(fetch = FetchType.LAZY)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "session-participants")
     @JoinTable(
             name = "PARTICIPATE",
             joinColumns = @JoinColumn( name = "session_id" ),
@@ -0,0 +1,99 @@
+package com.openclassrooms.starterjwt.models;
+
+import lombok.*;
+import lombok.experimental.Accessors;
+import org.hibernate.annotations.UpdateTimestamp;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+
+import javax.persistence.*;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.util.Date;
+import java.util.Set;
+
+/**
+ * Session repeated every week on the given days at the time of day of {@link #start}, in {@link #zone}, either
+ * forever, {@link #occurrenceCount} times or until {@link #until}. Its occurrences before {@link #materializedUntil}
+ * are {@link Session} rows referencing the series.
+ */
+@Entity
+@Table(name = "SESSION_SERIES")
+@EntityListeners(AuditingEntityListener.class)
+@Data
+@Accessors(chain = true)
+@EqualsAndHashCode(of = {"id"})
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+public class SessionSeries {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @NotBlank
+    @Size(max = 50)
+    private String name;
+
+    @NotNull
+    @Size(max = 2500)
+    private String description;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "teacher_id", referencedColumnName = "id")
+    @ToString.Exclude
+    private Teacher teacher;
+
+    @Min(1)
+    private Integer capacity;
+
+    /**
+     * First occurrence, when it falls on one of the days; otherwise the series starts on the next of them.
+     */
+    @NotNull
+    @Column(name = "start_date")
+    private Date start;
+
+    @NotNull
+    @Column(name = "time_zone")
+    private String zone;
+
+    @NotEmpty
+    @Convert(converter = DaysOfWeekConverter.class)
+    @Column(name = "days_of_week")
+    private Set<DayOfWeek> daysOfWeek;
+
+    @Min(1)
+    @Column(name = "occurrence_count")
+    private Integer occurrenceCount;
+
+    @Column(name = "until_date")
+    private Date until;
+
+    /**
+     * Last occurrence, derived from the count or the until date. Null when the series never ends.
+     */
+    @Column(name = "ends_at")
+    private Date endsAt;
+
+    /**
+     * Every occurrence strictly before this instant has been written as a session.
+     */
+    @NotNull
+    @Column(name = "materialized_until")
+    private Date materializedUntil;
+
+    @CreatedDate
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
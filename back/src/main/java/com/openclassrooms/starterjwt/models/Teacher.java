@@ -1,7 +1,10 @@
 package com.openclassrooms.starterjwt.models;
 
+import com.openclassrooms.starterjwt.services.TeacherCacheEvictionListener;
 import lombok.*;
 import lombok.experimental.Accessors;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.UpdateTimestamp;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
@@ -12,8 +15,10 @@ import javax.validation.constraints.Size;
 import java.time.LocalDateTime;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "teachers")
 @Table(name = "TEACHERS")
-@EntityListeners(AuditingEntityListener.class)
+@EntityListeners({AuditingEntityListener.class, TeacherCacheEvictionListener.class})
 @Data
 @Accessors(chain = true)
 @EqualsAndHashCode(of = {"id"})
@@ -43,4 +48,11 @@ public class Teacher {
     @UpdateTimestamp
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
+
+    /**
+     * Incremented by Hibernate on every update. The ETags of the teacher endpoints are derived from it.
+     */
+    @Version
+    @Column(name = "version")
+    private Long version;
 }
@@ -0,0 +1,82 @@
+package com.openclassrooms.starterjwt.monitoring;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Counts the SQL statements of each request, authentication included, and publishes them as
+ * {@code http.server.requests.queries{method,uri}}. The count is also left in the {@link #QUERY_COUNT_ATTRIBUTE}
+ * request attribute so tests can pin the query budget of an endpoint.
+ *
+ * A request above {@code oc.app.queries.threshold} is logged as a warning, or fails when
+ * {@code oc.app.queries.strict} is set, which is how tests catch N+1 regressions.
+ *
+ * Streamed responses read their pages on an async thread after the filter has returned, so their statements are not
+ * counted; their number grows with the result by design.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class QueryCountFilter extends OncePerRequestFilter {
+
+    public static final String QUERY_COUNT_ATTRIBUTE = QueryCountFilter.class.getName() + ".count";
+
+    private static final Logger logger = LoggerFactory.getLogger(QueryCountFilter.class);
+
+    private final MeterRegistry meterRegistry;
+
+    private final int threshold;
+
+    private final boolean strict;
+
+    public QueryCountFilter(MeterRegistry meterRegistry,
+                            @Value("${oc.app.queries.threshold}") int threshold,
+                            @Value("${oc.app.queries.strict:false}") boolean strict) {
+        this.meterRegistry = meterRegistry;
+        this.threshold = threshold;
+        this.strict = strict;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        QueryCountInspector.start();
+        int count;
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            count = QueryCountInspector.stop();
+        }
+
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+        request.setAttribute(QUERY_COUNT_ATTRIBUTE, count);
+        DistributionSummary.builder("http.server.requests.queries")
+                .tag("method", request.getMethod())
+                .tag("uri", uri)
+                .register(meterRegistry)
+                .record(count);
+
+        if (count > threshold) {
+            String message = String.format("%s %s issued %d SQL statements, above the threshold of %d",
+                    request.getMethod(), uri, count, threshold);
+            if (strict) {
+                throw new IllegalStateException(message);
+            }
+            logger.warn(message);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.openclassrooms.starterjwt.payload.request;
+
+import java.util.List;
+
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+
+import lombok.Data;
+
+@Data
+public class ParticipantsRequest {
+  @NotEmpty
+  @Size(max = 1000)
+  private List<@NotNull Long> userIds;
+}
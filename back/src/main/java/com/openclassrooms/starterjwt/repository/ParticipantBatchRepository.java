@@ -0,0 +1,14 @@
+package com.openclassrooms.starterjwt.repository;
+
+import java.util.Collection;
+
+/**
+ * PARTICIPATE writes for many users of one session, sent as a single JDBC batch. They bypass Hibernate, so callers
+ * must recompute the seat counter and evict the cached participants of the session.
+ */
+public interface ParticipantBatchRepository {
+
+    void insertParticipants(Long sessionId, Collection<Long> userIds);
+
+    void deleteParticipants(Long sessionId, Collection<Long> userIds);
+}
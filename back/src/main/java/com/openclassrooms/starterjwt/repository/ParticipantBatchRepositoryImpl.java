@@ -0,0 +1,30 @@
+package com.openclassrooms.starterjwt.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+class ParticipantBatchRepositoryImpl implements ParticipantBatchRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    ParticipantBatchRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void insertParticipants(Long sessionId, Collection<Long> userIds) {
+        this.jdbcTemplate.batchUpdate("INSERT INTO PARTICIPATE (session_id, user_id) VALUES (?, ?)", rows(sessionId, userIds));
+    }
+
+    @Override
+    public void deleteParticipants(Long sessionId, Collection<Long> userIds) {
+        this.jdbcTemplate.batchUpdate("DELETE FROM PARTICIPATE WHERE session_id = ? AND user_id = ?", rows(sessionId, userIds));
+    }
+
+    private static List<Object[]> rows(Long sessionId, Collection<Long> userIds) {
+        return userIds.stream().map(userId -> new Object[]{sessionId, userId}).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,10 @@
+package com.openclassrooms.starterjwt.repository;
+
+/**
+ * Row of the PARTICIPATE join table, read without loading the Session or User entities.
+ */
+public interface SessionParticipant {
+    Long getSessionId();
+
+    Long getUserId();
+}
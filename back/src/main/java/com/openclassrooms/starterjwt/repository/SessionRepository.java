@@ -1,9 +1,136 @@
 package com.openclassrooms.starterjwt.repository;
 
 import com.openclassrooms.starterjwt.models.Session;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
+import static org.hibernate.jpa.QueryHints.HINT_NATIVE_SPACES;
+
+/**
+ * Native writes declare the tables they touch as query spaces. Hibernate flushes pending changes to those tables
+ * before running them and, once the transaction completes, invalidates the sessions second-level cache region only,
+ * instead of every region as it does for a native update without query spaces.
+ */
 @Repository
-public interface SessionRepository  extends JpaRepository<Session, Long> {
+public interface SessionRepository  extends JpaRepository<Session, Long>, ParticipantBatchRepository {
+
+    @Override
+    @EntityGraph(attributePaths = "teacher")
+    List<Session> findAll();
+
+    /**
+     * Keyset page of sessions ordered by (date, id), starting strictly after the given cursor.
+     * Every filter is optional: a null value disables it.
+     */
+    @Query("SELECT s FROM Session s"
+            + " WHERE (:teacherId IS NULL OR s.teacher.id = :teacherId)"
+            + " AND (:from IS NULL OR s.date >= :from)"
+            + " AND (:to IS NULL OR s.date < :to)"
+            + " AND (:afterDate IS NULL OR (s.date >= :afterDate AND (s.date > :afterDate OR s.id > :afterId)))"
+            + " ORDER BY s.date ASC, s.id ASC")
+    @EntityGraph(attributePaths = "teacher")
+    Slice<Session> findPage(@Param("teacherId") Long teacherId,
+                            @Param("from") Date from,
+                            @Param("to") Date to,
+                            @Param("afterDate") Date afterDate,
+                            @Param("afterId") Long afterId,
+                            Pageable pageable);
+
+    /**
+     * Every session in [from, to), ordered by (date, id). The teacher filter is optional.
+     */
+    @Query("SELECT s FROM Session s"
+            + " WHERE (:teacherId IS NULL OR s.teacher.id = :teacherId)"
+            + " AND s.date >= :from AND s.date < :to"
+            + " ORDER BY s.date ASC, s.id ASC")
+    @EntityGraph(attributePaths = "teacher")
+    List<Session> findInRange(@Param("teacherId") Long teacherId, @Param("from") Date from, @Param("to") Date to);
+
+    @Query("SELECT COUNT(s) AS count, MAX(s.updatedAt) AS updatedAt, SUM(s.id) AS idSum, SUM(s.version) AS versionSum"
+            + " FROM Session s")
+    SessionVersion findVersion();
+
+    @Query(value = "SELECT p.session_id AS sessionId, p.user_id AS userId FROM PARTICIPATE p", nativeQuery = true)
+    List<SessionParticipant> findAllParticipants();
+
+    @Query(value = "SELECT p.session_id AS sessionId, p.user_id AS userId FROM PARTICIPATE p"
+            + " WHERE p.session_id IN (:sessionIds)", nativeQuery = true)
+    List<SessionParticipant> findParticipants(@Param("sessionIds") Collection<Long> sessionIds);
+
+    /**
+     * Each of the given users that exists, with the session id when the user already participates in the session
+     * and a null session id otherwise. Users that do not exist are absent.
+     */
+    @Query(value = "SELECT u.id AS userId, p.session_id AS sessionId FROM USERS u"
+            + " LEFT JOIN PARTICIPATE p ON p.user_id = u.id AND p.session_id = :sessionId"
+            + " WHERE u.id IN (:userIds)", nativeQuery = true)
+    List<SessionParticipant> findParticipation(@Param("sessionId") Long sessionId, @Param("userIds") Collection<Long> userIds);
+
+    /**
+     * Reads the seat counters and locks the session row until the transaction ends, which serializes the
+     * participation writes of the session. Empty when the session does not exist.
+     */
+    @Query(value = "SELECT s.capacity AS capacity, s.participant_count AS participantCount FROM SESSIONS s"
+            + " WHERE s.id = :id FOR UPDATE", nativeQuery = true)
+    Optional<SessionSeats> lockSeats(@Param("id") Long id);
+
+    /**
+     * Takes one seat if the session still has room. Returns 0 when the session is full or does not exist.
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HINT_NATIVE_SPACES, value = "SESSIONS"))
+    @Query(value = "UPDATE SESSIONS SET participant_count = participant_count + 1, version = version + 1"
+            + " WHERE id = :id AND (capacity IS NULL OR participant_count < capacity)", nativeQuery = true)
+    int reserveSeat(@Param("id") Long id);
+
+    /**
+     * Inserts the participation unless it already exists. Returns 0 when the user already participates.
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HINT_NATIVE_SPACES, value = "SESSIONS,PARTICIPATE"))
+    @Query(value = "INSERT INTO PARTICIPATE (session_id, user_id)"
+            + " SELECT :sessionId, :userId FROM DUAL WHERE NOT EXISTS"
+            + " (SELECT 1 FROM PARTICIPATE p WHERE p.session_id = :sessionId AND p.user_id = :userId)", nativeQuery = true)
+    int insertParticipant(@Param("sessionId") Long sessionId, @Param("userId") Long userId);
+
+    /**
+     * Deletes a single participation. Returns 0 when the user did not participate.
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HINT_NATIVE_SPACES, value = "SESSIONS,PARTICIPATE"))
+    @Query(value = "DELETE FROM PARTICIPATE WHERE session_id = :sessionId AND user_id = :userId", nativeQuery = true)
+    int deleteParticipant(@Param("sessionId") Long sessionId, @Param("userId") Long userId);
+
+    /**
+     * Gives back the seat of a cancelled participation, and bumps the version even if the counter was already 0.
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HINT_NATIVE_SPACES, value = "SESSIONS"))
+    @Query(value = "UPDATE SESSIONS SET participant_count = GREATEST(participant_count - 1, 0), version = version + 1"
+            + " WHERE id = :id", nativeQuery = true)
+    int releaseSeat(@Param("id") Long id);
+
+    /**
+     * Recomputes the seat counter after the session or its participants were written through the entity or in a
+     * batch, and bumps the version.
+     */
+    @Modifying
+    @QueryHints(@QueryHint(name = HINT_NATIVE_SPACES, value = "SESSIONS"))
+    @Query(value = "UPDATE SESSIONS SET participant_count ="
+            + " (SELECT COUNT(*) FROM PARTICIPATE p WHERE p.session_id = :id), version = version + 1"
+            + " WHERE id = :id", nativeQuery = true)
+    int refreshParticipantCount(@Param("id") Long id);
 }
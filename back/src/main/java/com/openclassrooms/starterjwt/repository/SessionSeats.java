@@ -0,0 +1,10 @@
+package com.openclassrooms.starterjwt.repository;
+
+/**
+ * Seat counters of a session, read without loading the Session entity.
+ */
+public interface SessionSeats {
+    Integer getCapacity();
+
+    Integer getParticipantCount();
+}
@@ -0,0 +1,46 @@
+package com.openclassrooms.starterjwt.repository;
+
+import com.openclassrooms.starterjwt.models.SessionSeries;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.LockModeType;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface SessionSeriesRepository extends JpaRepository<SessionSeries, Long> {
+
+    /**
+     * Series that may have occurrences in [from, to) that are not sessions yet. The teacher filter is optional.
+     */
+    @Query("SELECT s FROM SessionSeries s"
+            + " WHERE s.materializedUntil < :to AND s.start < :to"
+            + " AND (s.endsAt IS NULL OR (s.endsAt >= :from AND s.endsAt >= s.materializedUntil))"
+            + " AND (:teacherId IS NULL OR s.teacher.id = :teacherId)")
+    @EntityGraph(attributePaths = "teacher")
+    List<SessionSeries> findUnmaterialized(@Param("teacherId") Long teacherId,
+                                           @Param("from") Date from,
+                                           @Param("to") Date to);
+
+    /**
+     * Ids of the series with occurrences left to write before the given horizon.
+     */
+    @Query("SELECT s.id FROM SessionSeries s"
+            + " WHERE s.materializedUntil < :horizon AND s.start < :horizon"
+            + " AND (s.endsAt IS NULL OR s.endsAt >= s.materializedUntil)")
+    List<Long> findIdsToMaterialize(@Param("horizon") Date horizon);
+
+    /**
+     * Reads the series and locks its row until the transaction ends, so that concurrent materializations of the
+     * series cannot write the same occurrence twice.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM SessionSeries s WHERE s.id = :id")
+    Optional<SessionSeries> findForUpdate(@Param("id") Long id);
+}
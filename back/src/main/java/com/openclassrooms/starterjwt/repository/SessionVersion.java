@@ -0,0 +1,17 @@
+package com.openclassrooms.starterjwt.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Aggregate state of the SESSIONS table. Updates and participations bump the version of their session; a session
+ * deleted and another created within the same second change the id sum, as new sessions take higher ids.
+ */
+public interface SessionVersion {
+    Long getCount();
+
+    LocalDateTime getUpdatedAt();
+
+    Long getIdSum();
+
+    Long getVersionSum();
+}
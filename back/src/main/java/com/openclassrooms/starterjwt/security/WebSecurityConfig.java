@@ -1,8 +1,14 @@
 package com.openclassrooms.starterjwt.security;
 
+import java.util.Map;
+
+import javax.servlet.http.HttpServletRequest;
+
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.annotation.authentication.builders.AuthenticationManagerBuilder;
 import org.springframework.security.config.annotation.method.configuration.EnableGlobalMethodSecurity;
@@ -11,13 +17,19 @@ import org.springframework.security.config.annotation.web.configuration.EnableWe
 import org.springframework.security.config.annotation.web.configuration.WebSecurityConfigurerAdapter;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.util.matcher.AndRequestMatcher;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
 
+import com.openclassrooms.starterjwt.security.crypto.BoundedPasswordEncoder;
 import com.openclassrooms.starterjwt.security.jwt.AuthEntryPointJwt;
 import com.openclassrooms.starterjwt.security.jwt.AuthTokenFilter;
 import com.openclassrooms.starterjwt.security.services.UserDetailsServiceImpl;
 
+import io.micrometer.core.instrument.MeterRegistry;
+
 @Configuration
 @EnableWebSecurity
 @EnableGlobalMethodSecurity(
@@ -25,12 +37,29 @@ import com.openclassrooms.starterjwt.security.services.UserDetailsServiceImpl;
     // jsr250Enabled = true,
     prePostEnabled = true)
 public class WebSecurityConfig extends WebSecurityConfigurerAdapter {
+  private static final String METRICS_PATH = "/actuator/prometheus";
+
   @Autowired
   UserDetailsServiceImpl userDetailsService;
 
   @Autowired
   private AuthEntryPointJwt unauthorizedHandler;
 
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  @Autowired
+  private Environment environment;
+
+  @Value("${oc.app.password.threads:#{T(java.lang.Runtime).getRuntime().availableProcessors()}}")
+  private int passwordThreads;
+
+  @Value("${oc.app.password.queueCapacity}")
+  private int passwordQueueCapacity;
+
+  @Value("${oc.app.password.strength}")
+  private int passwordStrength;
+
   @Bean
   public AuthTokenFilter authenticationJwtTokenFilter() {
     return new AuthTokenFilter();
@@ -47,9 +76,18 @@ public class WebSecurityConfig extends WebSecurityConfigurerAdapter {
     return super.authenticationManagerBean();
   }
 
+  /**
+   * New hashes are stored as {bcrypt} with the configured strength. Hashes without an id prefix are the legacy
+   * BCrypt ones: they still match, and they are re-encoded on the next successful login like any hash whose
+   * strength is below the configured one.
+   */
   @Bean
   public PasswordEncoder passwordEncoder() {
-    return new BCryptPasswordEncoder();
+    BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(passwordStrength);
+    DelegatingPasswordEncoder delegating = new DelegatingPasswordEncoder("bcrypt", Map.of("bcrypt", bcrypt));
+    delegating.setDefaultPasswordEncoderForMatches(bcrypt);
+
+    return new BoundedPasswordEncoder(delegating, passwordThreads, passwordQueueCapacity, meterRegistry);
   }
 
   @Override
@@ -58,9 +96,21 @@ public class WebSecurityConfig extends WebSecurityConfigurerAdapter {
       .exceptionHandling().authenticationEntryPoint(unauthorizedHandler).and()
       .sessionManagement().sessionCreationPolicy(SessionCreationPolicy.STATELESS).and()
       .authorizeRequests().antMatchers("/api/auth/**").permitAll()
+      .antMatchers("/actuator/health").permitAll()
+      .requestMatchers(new AndRequestMatcher(new AntPathRequestMatcher(METRICS_PATH), this::isManagementPort)).permitAll()
       .antMatchers("/api/**").authenticated()
       .anyRequest().authenticated();
 
     http.addFilterBefore(authenticationJwtTokenFilter(), UsernamePasswordAuthenticationFilter.class);
   }
+
+  /**
+   * The scrape endpoint is open only on {@code management.server.port}, which is bound to the loopback interface and
+   * never proxied. The client address proves nothing, as a reverse proxy on the same host forwards every outside
+   * request from loopback, so anywhere else the endpoint requires authentication like any other path.
+   */
+  private boolean isManagementPort(HttpServletRequest request) {
+    Integer managementPort = environment.getProperty("local.management.port", Integer.class);
+    return managementPort != null && managementPort == request.getLocalPort();
+  }
 }
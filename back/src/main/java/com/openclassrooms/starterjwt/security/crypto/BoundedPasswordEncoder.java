@@ -0,0 +1,99 @@
+package com.openclassrooms.starterjwt.security.crypto;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import com.openclassrooms.starterjwt.exception.ServiceUnavailableException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+
+/**
+ * Runs the hashing and verification of a delegate encoder on a fixed pool of threads with a bounded queue, so that
+ * a burst of logins or registrations uses at most that many cores. When the queue is full the call fails at once
+ * with a {@link ServiceUnavailableException} (503) instead of piling up request threads.
+ *
+ * The pool is published as the {@code executor.*} metrics with {@code name=password.encoder} (queue depth, active
+ * threads), hash latency as {@code password.hash} and rejections as {@code password.hash.rejected}.
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder, DisposableBean {
+  private static final String EXECUTOR_NAME = "password.encoder";
+
+  private final PasswordEncoder delegate;
+
+  private final ThreadPoolExecutor executor;
+
+  private final Timer encodeTimer;
+
+  private final Timer matchesTimer;
+
+  private final Counter rejected;
+
+  public BoundedPasswordEncoder(PasswordEncoder delegate, int threads, int queueCapacity, MeterRegistry meterRegistry) {
+    this.delegate = delegate;
+    this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(queueCapacity),
+        new CustomizableThreadFactory("password-"),
+        new ThreadPoolExecutor.AbortPolicy());
+
+    new ExecutorServiceMetrics(executor, EXECUTOR_NAME, Tags.empty()).bindTo(meterRegistry);
+    this.encodeTimer = Timer.builder("password.hash").tag("operation", "encode").register(meterRegistry);
+    this.matchesTimer = Timer.builder("password.hash").tag("operation", "matches").register(meterRegistry);
+    this.rejected = Counter.builder("password.hash.rejected").register(meterRegistry);
+  }
+
+  @Override
+  public String encode(CharSequence rawPassword) {
+    return run(encodeTimer, () -> delegate.encode(rawPassword));
+  }
+
+  @Override
+  public boolean matches(CharSequence rawPassword, String encodedPassword) {
+    return run(matchesTimer, () -> delegate.matches(rawPassword, encodedPassword));
+  }
+
+  @Override
+  public boolean upgradeEncoding(String encodedPassword) {
+    return delegate.upgradeEncoding(encodedPassword);
+  }
+
+  @Override
+  public void destroy() {
+    executor.shutdown();
+  }
+
+  private <T> T run(Timer timer, Callable<T> task) {
+    Future<T> future;
+    try {
+      future = executor.submit(() -> timer.recordCallable(task));
+    } catch (RejectedExecutionException e) {
+      rejected.increment();
+      throw new ServiceUnavailableException();
+    }
+
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      future.cancel(true);
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting for the password encoder", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw new IllegalStateException(e.getCause());
+    }
+  }
+}
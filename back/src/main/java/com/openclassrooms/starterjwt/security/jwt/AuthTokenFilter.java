@@ -10,6 +10,7 @@ import javax.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -17,15 +18,23 @@ import org.springframework.security.web.authentication.WebAuthenticationDetailsS
 import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
+import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
 import com.openclassrooms.starterjwt.security.services.UserDetailsServiceImpl;
 
 public class AuthTokenFilter extends OncePerRequestFilter {
   @Autowired
-  JwtUtils jwtUtils;
+  VerifiedTokenCache verifiedTokens;
 
   @Autowired
   UserDetailsServiceImpl userDetailsService;
 
+  /**
+   * When set, the principal is built from the verified claims alone and the database is not read. Changes to a user
+   * (names, admin flag, deletion) are then only seen once the user's token is renewed.
+   */
+  @Value("${oc.app.jwtStateless:false}")
+  boolean stateless;
+
   private static final Logger logger = LoggerFactory.getLogger(AuthTokenFilter.class);
 
   @Override
@@ -33,10 +42,11 @@ public class AuthTokenFilter extends OncePerRequestFilter {
       throws ServletException, IOException {
     try {
       String jwt = parseJwt(request);
-      if (jwt != null && jwtUtils.validateJwtToken(jwt)) {
-        String username = jwtUtils.getUserNameFromJwtToken(jwt);
-
-        UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+      JwtClaims claims = jwt != null ? verifiedTokens.verify(jwt) : null;
+      if (claims != null) {
+        UserDetails userDetails = stateless && claims.id() != null
+            ? principalOf(claims)
+            : userDetailsService.loadPrincipalByUsername(claims.subject());
         UsernamePasswordAuthenticationToken authentication =
             new UsernamePasswordAuthenticationToken(
                 userDetails,
@@ -53,6 +63,17 @@ public class AuthTokenFilter extends OncePerRequestFilter {
     filterChain.doFilter(request, response);
   }
 
+  private UserDetails principalOf(JwtClaims claims) {
+    return UserDetailsImpl
+        .builder()
+        .id(claims.id())
+        .username(claims.subject())
+        .firstName(claims.firstName())
+        .lastName(claims.lastName())
+        .admin(claims.admin())
+        .build();
+  }
+
   private String parseJwt(HttpServletRequest request) {
     String headerAuth = request.getHeader("Authorization");
 
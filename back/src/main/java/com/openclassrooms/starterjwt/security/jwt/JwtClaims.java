@@ -0,0 +1,9 @@
+package com.openclassrooms.starterjwt.security.jwt;
+
+import java.time.Instant;
+
+/**
+ * Claims of a token whose signature and expiry have been verified.
+ */
+public record JwtClaims(String subject, Instant expiration, Long id, Boolean admin, String firstName, String lastName) {
+}
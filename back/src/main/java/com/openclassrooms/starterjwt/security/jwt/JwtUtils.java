@@ -1,7 +1,10 @@
 package com.openclassrooms.starterjwt.security.jwt;
 
+import java.security.Key;
 import java.util.Date;
 
+import javax.crypto.spec.SecretKeySpec;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
@@ -11,49 +14,132 @@ import org.springframework.stereotype.Component;
 import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
 
 import io.jsonwebtoken.*;
+import io.jsonwebtoken.impl.TextCodec;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
 
 @Component
 public class JwtUtils {
   private static final Logger logger = LoggerFactory.getLogger(JwtUtils.class);
 
+  static final String ID_CLAIM = "id";
+
+  static final String ADMIN_CLAIM = "admin";
+
+  static final String FIRST_NAME_CLAIM = "firstName";
+
+  static final String LAST_NAME_CLAIM = "lastName";
+
+  /**
+   * Outcomes of signature verifications, published as {@code jwt.validations{result}}. Tokens served by the
+   * verified-token cache are not verified again and are not counted here.
+   */
+  private static final Counter VALID = validations("valid");
+
+  private static final Counter BAD_SIGNATURE = validations("bad_signature");
+
+  private static final Counter MALFORMED = validations("malformed");
+
+  private static final Counter EXPIRED = validations("expired");
+
+  private static final Counter UNSUPPORTED = validations("unsupported");
+
+  private static final Counter EMPTY = validations("empty");
+
   @Value("${oc.app.jwtSecret}")
   private String jwtSecret;
 
   @Value("${oc.app.jwtExpirationMs}")
   private int jwtExpirationMs;
 
+  private volatile Key signingKey;
+
+  private volatile JwtParser parser;
+
   public String generateJwtToken(Authentication authentication) {
 
     UserDetailsImpl userPrincipal = (UserDetailsImpl) authentication.getPrincipal();
+    Date now = new Date();
 
     return Jwts.builder()
         .setSubject((userPrincipal.getUsername()))
-        .setIssuedAt(new Date())
-        .setExpiration(new Date((new Date()).getTime() + jwtExpirationMs))
-        .signWith(SignatureAlgorithm.HS512, jwtSecret)
+        .claim(ID_CLAIM, userPrincipal.getId())
+        .claim(ADMIN_CLAIM, userPrincipal.getAdmin())
+        .claim(FIRST_NAME_CLAIM, userPrincipal.getFirstName())
+        .claim(LAST_NAME_CLAIM, userPrincipal.getLastName())
+        .setIssuedAt(now)
+        .setExpiration(new Date(now.getTime() + jwtExpirationMs))
+        .signWith(SignatureAlgorithm.HS512, signingKey())
         .compact();
   }
 
   public String getUserNameFromJwtToken(String token) {
-    return Jwts.parser().setSigningKey(jwtSecret).parseClaimsJws(token).getBody().getSubject();
+    return parser().parseClaimsJws(token).getBody().getSubject();
   }
 
   public boolean validateJwtToken(String authToken) {
+    return parseJwtToken(authToken) != null;
+  }
+
+  /**
+   * Verifies the token once and returns its claims, or null when the token cannot be trusted.
+   */
+  public JwtClaims parseJwtToken(String authToken) {
     try {
-      Jwts.parser().setSigningKey(jwtSecret).parseClaimsJws(authToken);
-      return true;
+      Claims claims = parser().parseClaimsJws(authToken).getBody();
+      VALID.increment();
+      return new JwtClaims(
+          claims.getSubject(),
+          claims.getExpiration() != null ? claims.getExpiration().toInstant() : null,
+          claims.get(ID_CLAIM, Long.class),
+          claims.get(ADMIN_CLAIM, Boolean.class),
+          claims.get(FIRST_NAME_CLAIM, String.class),
+          claims.get(LAST_NAME_CLAIM, String.class));
     } catch (SignatureException e) {
       logger.error("Invalid JWT signature: {}", e.getMessage());
+      BAD_SIGNATURE.increment();
     } catch (MalformedJwtException e) {
       logger.error("Invalid JWT token: {}", e.getMessage());
+      MALFORMED.increment();
     } catch (ExpiredJwtException e) {
       logger.error("JWT token is expired: {}", e.getMessage());
+      EXPIRED.increment();
     } catch (UnsupportedJwtException e) {
       logger.error("JWT token is unsupported: {}", e.getMessage());
+      UNSUPPORTED.increment();
     } catch (IllegalArgumentException e) {
       logger.error("JWT claims string is empty: {}", e.getMessage());
+      EMPTY.increment();
     }
 
-    return false;
+    return null;
+  }
+
+  private static Counter validations(String result) {
+    return Metrics.counter("jwt.validations", "result", result);
+  }
+
+  /**
+   * The secret is decoded once. Like {@code JwtParser.setSigningKey(String)}, it is read as Base64.
+   */
+  private Key signingKey() {
+    Key key = signingKey;
+    if (key == null) {
+      key = new SecretKeySpec(TextCodec.BASE64.decode(jwtSecret), SignatureAlgorithm.HS512.getJcaName());
+      signingKey = key;
+    }
+    return key;
+  }
+
+  /**
+   * The configured parser keeps no per-token state and is shared by all request threads.
+   */
+  private JwtParser parser() {
+    JwtParser jwtParser = parser;
+    if (jwtParser == null) {
+      jwtParser = Jwts.parser().setSigningKey(signingKey());
+      parser = jwtParser;
+    }
+    return jwtParser;
   }
 }
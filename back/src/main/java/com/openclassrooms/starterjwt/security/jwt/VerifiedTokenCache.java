@@ -0,0 +1,56 @@
+package com.openclassrooms.starterjwt.security.jwt;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.Base64;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import com.openclassrooms.starterjwt.config.CacheConfig;
+
+/**
+ * Remembers tokens whose signature has already been verified, so a bearer token sent again skips HMAC verification
+ * until it expires. Entries are keyed by the SHA-256 digest of the token, never by the token itself, and rejected
+ * tokens are not remembered.
+ */
+@Component
+public class VerifiedTokenCache {
+  private final JwtUtils jwtUtils;
+
+  private final Cache cache;
+
+  public VerifiedTokenCache(JwtUtils jwtUtils, CacheManager cacheManager) {
+    this.jwtUtils = jwtUtils;
+    this.cache = cacheManager.getCache(CacheConfig.TOKENS);
+  }
+
+  /**
+   * Returns the claims of the token, or null when the token cannot be trusted.
+   */
+  public JwtClaims verify(String token) {
+    String key = digest(token);
+    JwtClaims claims = cache.get(key, JwtClaims.class);
+    if (claims != null && claims.expiration().isAfter(Instant.now())) {
+      return claims;
+    }
+
+    claims = jwtUtils.parseJwtToken(token);
+    if (claims != null && claims.expiration() != null) {
+      cache.put(key, claims);
+    }
+    return claims;
+  }
+
+  static String digest(String token) {
+    try {
+      byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+      return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not available", e);
+    }
+  }
+}
@@ -0,0 +1,45 @@
+package com.openclassrooms.starterjwt.security.services;
+
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.openclassrooms.starterjwt.config.CacheConfig;
+import com.openclassrooms.starterjwt.models.User;
+
+/**
+ * Drops the cached principal of a user that is updated or deleted.
+ * The eviction waits for the end of the transaction so a concurrent request cannot cache the old row again.
+ */
+public class PrincipalCacheEvictionListener {
+  private final CacheManager cacheManager;
+
+  public PrincipalCacheEvictionListener(CacheManager cacheManager) {
+    this.cacheManager = cacheManager;
+  }
+
+  @PostUpdate
+  @PostRemove
+  public void evict(User user) {
+    Cache cache = cacheManager.getCache(CacheConfig.PRINCIPALS);
+    if (cache == null) {
+      return;
+    }
+
+    String username = user.getEmail();
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCompletion(int status) {
+          cache.evict(username);
+        }
+      });
+    } else {
+      cache.evict(username);
+    }
+  }
+}
@@ -1,10 +1,12 @@
 package com.openclassrooms.starterjwt.security.services;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Objects;
 
 import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
@@ -33,6 +35,9 @@ public class UserDetailsImpl implements UserDetails {
   private String password;  
   
   public Collection<? extends GrantedAuthority> getAuthorities() {        
+      if (Boolean.TRUE.equals(admin)) {
+        return Collections.singleton(new SimpleGrantedAuthority("ROLE_ADMIN"));
+      }
       return new HashSet<GrantedAuthority>();
   }
 
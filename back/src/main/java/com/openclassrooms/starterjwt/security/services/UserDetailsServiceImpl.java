@@ -1,16 +1,19 @@
 package com.openclassrooms.starterjwt.security.services;
 
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.openclassrooms.starterjwt.config.CacheConfig;
 import com.openclassrooms.starterjwt.models.User;
 import com.openclassrooms.starterjwt.repository.UserRepository;
 
 @Service
-public class UserDetailsServiceImpl implements UserDetailsService {
+public class UserDetailsServiceImpl implements UserDetailsService, UserDetailsPasswordService {
   UserRepository userRepository;
 
   UserDetailsServiceImpl(UserRepository userRepository) {
@@ -20,8 +23,7 @@ public class UserDetailsServiceImpl implements UserDetailsService {
   @Override
   @Transactional
   public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-    User user = userRepository.findByEmail(username)
-        .orElseThrow(() -> new UsernameNotFoundException("User Not Found with email: " + username));
+    User user = findUser(username);
 
     return UserDetailsImpl
             .builder()
@@ -29,8 +31,52 @@ public class UserDetailsServiceImpl implements UserDetailsService {
             .username(user.getEmail())
             .lastName(user.getLastName())
             .firstName(user.getFirstName())
+            .admin(user.isAdmin())
             .password(user.getPassword())
             .build();
   }
 
+  /**
+   * Principal of an already authenticated request, without the password hash.
+   * Cached so that requests carrying a valid token do not query the database.
+   */
+  @Cacheable(cacheNames = CacheConfig.PRINCIPALS)
+  @Transactional(readOnly = true)
+  public UserDetails loadPrincipalByUsername(String username) throws UsernameNotFoundException {
+    User user = findUser(username);
+
+    return UserDetailsImpl
+            .builder()
+            .id(user.getId())
+            .username(user.getEmail())
+            .lastName(user.getLastName())
+            .firstName(user.getFirstName())
+            .admin(user.isAdmin())
+            .build();
+  }
+
+  /**
+   * Stores the re-encoded password after a successful login with an outdated hash.
+   */
+  @Override
+  @Transactional
+  public UserDetails updatePassword(UserDetails userDetails, String newPassword) {
+    User user = findUser(userDetails.getUsername());
+    user.setPassword(newPassword);
+
+    return UserDetailsImpl
+            .builder()
+            .id(user.getId())
+            .username(user.getEmail())
+            .lastName(user.getLastName())
+            .firstName(user.getFirstName())
+            .admin(user.isAdmin())
+            .password(newPassword)
+            .build();
+  }
+
+  private User findUser(String username) {
+    return userRepository.findByEmail(username)
+        .orElseThrow(() -> new UsernameNotFoundException("User Not Found with email: " + username));
+  }
 }
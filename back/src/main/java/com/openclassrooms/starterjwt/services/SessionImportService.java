@@ -0,0 +1,115 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.dto.SessionDto;
+import com.openclassrooms.starterjwt.dto.SessionImportResult;
+import com.openclassrooms.starterjwt.exception.BadRequestException;
+import com.openclassrooms.starterjwt.mapper.SessionCsvMapper;
+import com.openclassrooms.starterjwt.mapper.SessionMapper;
+import com.openclassrooms.starterjwt.models.Session;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.validation.Validator;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Creates many sessions at once. Every row is validated before anything is written, so an import either creates all
+ * of its sessions or reports the errors of every invalid row and creates none.
+ */
+@Service
+@Timed("service")
+public class SessionImportService {
+
+    private final SessionService sessionService;
+
+    private final SessionMapper sessionMapper;
+
+    private final SessionCsvMapper sessionCsvMapper;
+
+    private final Validator validator;
+
+    private final int maxRows;
+
+    public SessionImportService(SessionService sessionService,
+                                SessionMapper sessionMapper,
+                                SessionCsvMapper sessionCsvMapper,
+                                Validator validator,
+                                @Value("${oc.app.import.maxRows}") int maxRows) {
+        this.sessionService = sessionService;
+        this.sessionMapper = sessionMapper;
+        this.sessionCsvMapper = sessionCsvMapper;
+        this.validator = validator;
+        this.maxRows = maxRows;
+    }
+
+    public SessionImportResult importSessions(List<SessionDto> sessionDtos) {
+        List<SessionImportResult.RowError> errors = new ArrayList<>();
+        for (int i = 0; i < sessionDtos.size(); i++) {
+            if (sessionDtos.get(i) == null) {
+                errors.add(new SessionImportResult.RowError(i + 1, List.of("session: must not be null")));
+            }
+        }
+
+        return importRows(sessionDtos, errors);
+    }
+
+    public SessionImportResult importCsv(String csv) {
+        List<SessionImportResult.RowError> errors = new ArrayList<>();
+        List<SessionDto> sessionDtos = this.sessionCsvMapper.toDtos(csv, errors);
+
+        return importRows(sessionDtos, errors);
+    }
+
+    /**
+     * Rows that could not be read are null and already have their error.
+     */
+    private SessionImportResult importRows(List<SessionDto> sessionDtos, List<SessionImportResult.RowError> errors) {
+        if (sessionDtos.isEmpty() || sessionDtos.size() > this.maxRows) {
+            throw new BadRequestException();
+        }
+
+        List<Session> sessions = new ArrayList<>();
+        for (int i = 0; i < sessionDtos.size(); i++) {
+            SessionDto sessionDto = sessionDtos.get(i);
+            if (sessionDto == null) {
+                continue;
+            }
+
+            List<String> messages = validate(sessionDto);
+            if (messages.isEmpty()) {
+                // Teachers are served by the TeacherService cache, and there are no participants to resolve
+                Session session = this.sessionMapper.toEntity(sessionDto).setId(null);
+                if (session.getTeacher() == null) {
+                    messages.add("teacher_id: teacher not found");
+                }
+                sessions.add(session);
+            }
+            if (!messages.isEmpty()) {
+                errors.add(new SessionImportResult.RowError(i + 1, messages));
+            }
+        }
+
+        if (!errors.isEmpty()) {
+            errors.sort(Comparator.comparingInt(SessionImportResult.RowError::getRow));
+            return new SessionImportResult(0, List.of(), errors);
+        }
+
+        this.sessionService.createAll(sessions);
+        return new SessionImportResult(sessions.size(), sessions.stream().map(Session::getId).collect(Collectors.toList()), List.of());
+    }
+
+    private List<String> validate(SessionDto sessionDto) {
+        List<String> messages = this.validator.validate(sessionDto).stream()
+                .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.toCollection(ArrayList::new));
+        if (sessionDto.getUsers() != null && !sessionDto.getUsers().isEmpty()) {
+            messages.add("users: participants cannot be imported");
+        }
+        return messages;
+    }
+}
@@ -0,0 +1,31 @@
+package com.openclassrooms.starterjwt.services;
+
+import lombok.extern.log4j.Log4j2;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Moves the horizon of every series forward on {@code oc.app.series.cron}, one transaction per series, so that a
+ * failing series does not hold back the others.
+ */
+@Component
+@Log4j2
+public class SessionSeriesMaterializer {
+
+    private final SessionSeriesService sessionSeriesService;
+
+    public SessionSeriesMaterializer(SessionSeriesService sessionSeriesService) {
+        this.sessionSeriesService = sessionSeriesService;
+    }
+
+    @Scheduled(cron = "${oc.app.series.cron}")
+    public void materializeAll() {
+        for (Long id : this.sessionSeriesService.findIdsToMaterialize()) {
+            try {
+                this.sessionSeriesService.materialize(id);
+            } catch (RuntimeException e) {
+                log.error("Could not materialize the occurrences of session series " + id, e);
+            }
+        }
+    }
+}
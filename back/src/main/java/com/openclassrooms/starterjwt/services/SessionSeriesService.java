@@ -0,0 +1,228 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.dto.SessionDto;
+import com.openclassrooms.starterjwt.exception.BadRequestException;
+import com.openclassrooms.starterjwt.exception.NotFoundException;
+import com.openclassrooms.starterjwt.mapper.SessionMapper;
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.SessionSeries;
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+import com.openclassrooms.starterjwt.repository.SessionSeriesRepository;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.DateTimeException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Weekly recurring sessions. Only the occurrences up to {@code oc.app.series.horizon} from now are written as
+ * sessions, so that users can take part in them; the later ones are computed from the series when a range is read,
+ * and written as the horizon moves forward. An occurrence that was written and then deleted is not computed again.
+ */
+@Service
+@Timed("service")
+public class SessionSeriesService {
+    public static final Duration MAX_RANGE = Duration.ofDays(366);
+
+    private final SessionSeriesRepository sessionSeriesRepository;
+
+    private final SessionRepository sessionRepository;
+
+    private final SessionService sessionService;
+
+    private final SessionMapper sessionMapper;
+
+    private final Duration horizon;
+
+    public SessionSeriesService(SessionSeriesRepository sessionSeriesRepository,
+                                SessionRepository sessionRepository,
+                                SessionService sessionService,
+                                SessionMapper sessionMapper,
+                                @Value("${oc.app.series.horizon}") Duration horizon) {
+        this.sessionSeriesRepository = sessionSeriesRepository;
+        this.sessionRepository = sessionRepository;
+        this.sessionService = sessionService;
+        this.sessionMapper = sessionMapper;
+        this.horizon = horizon;
+    }
+
+    /**
+     * Saves the series and writes its occurrences up to the horizon as sessions, in JDBC batches, within the same
+     * transaction.
+     */
+    @Transactional
+    public SessionSeries create(SessionSeries series) {
+        if (series.getZone() == null) {
+            series.setZone(ZoneId.systemDefault().getId());
+        }
+        check(series);
+
+        // The columns have no fractional seconds, and materialized and computed occurrences must be the same instants
+        series.setId(null);
+        series.setStart(Date.from(series.getStart().toInstant().truncatedTo(ChronoUnit.SECONDS)));
+        if (series.getUntil() != null) {
+            series.setUntil(Date.from(series.getUntil().toInstant().truncatedTo(ChronoUnit.SECONDS)));
+        }
+        series.setEndsAt(series.getOccurrenceCount() != null
+                ? Date.from(last(occurrences(series, series.getStart().toInstant(), Instant.MAX, series.getOccurrenceCount())))
+                : series.getUntil());
+        series.setMaterializedUntil(series.getStart());
+
+        SessionSeries created = this.sessionSeriesRepository.save(series);
+        materialize(created, horizonEnd());
+        return created;
+    }
+
+    public SessionSeries getById(Long id) {
+        return this.sessionSeriesRepository.findById(id).orElse(null);
+    }
+
+    /**
+     * Ids of the series with occurrences that fall within the horizon and are not sessions yet.
+     */
+    public List<Long> findIdsToMaterialize() {
+        return this.sessionSeriesRepository.findIdsToMaterialize(Date.from(horizonEnd()));
+    }
+
+    /**
+     * Writes the occurrences of the series that fall within the horizon and are not sessions yet.
+     */
+    @Transactional
+    public void materialize(Long id) {
+        SessionSeries series = this.sessionSeriesRepository.findForUpdate(id).orElseThrow(NotFoundException::new);
+        materialize(series, horizonEnd());
+    }
+
+    /**
+     * Sessions in [from, to), ordered by date, merged with the occurrences of the series that are not sessions yet.
+     * Those have no id, no participants and the id of their series. Sessions and series are read from one snapshot, so
+     * that occurrences materialized between the two reads are neither missing nor returned twice.
+     */
+    @Transactional(readOnly = true)
+    public List<SessionDto> findOccurrences(Long teacherId, Date from, Date to) {
+        if (from == null || to == null || !from.before(to)
+                || Duration.between(from.toInstant(), to.toInstant()).compareTo(MAX_RANGE) > 0) {
+            throw new BadRequestException();
+        }
+
+        List<Session> sessions = this.sessionRepository.findInRange(teacherId, from, to);
+        Map<Long, List<Long>> participants = this.sessionService.findParticipantIds(
+                sessions.stream().map(Session::getId).collect(Collectors.toList()));
+        List<SessionDto> occurrences = new ArrayList<>(this.sessionMapper.toDto(sessions, participants));
+
+        for (SessionSeries series : this.sessionSeriesRepository.findUnmaterialized(teacherId, from, to)) {
+            Instant after = later(from.toInstant(), series.getMaterializedUntil().toInstant());
+            for (Instant date : occurrences(series, after, to.toInstant(), Integer.MAX_VALUE)) {
+                occurrences.add(toDto(series, date));
+            }
+        }
+
+        occurrences.sort(Comparator.comparing(SessionDto::getDate)
+                .thenComparing(SessionDto::getId, Comparator.nullsLast(Comparator.naturalOrder())));
+        return occurrences;
+    }
+
+    /**
+     * Occurrences of the series in [from, to), in order, at most {@code limit} of them. Only the days from
+     * {@code from} on are visited, however far it is from the start of the series.
+     */
+    static List<Instant> occurrences(SessionSeries series, Instant from, Instant to, int limit) {
+        ZoneId zone = ZoneId.of(series.getZone());
+        ZonedDateTime start = series.getStart().toInstant().atZone(zone);
+        LocalTime time = start.toLocalTime();
+        Instant first = later(start.toInstant(), from);
+        Instant endsAt = series.getEndsAt() != null ? series.getEndsAt().toInstant() : null;
+
+        List<Instant> occurrences = new ArrayList<>();
+        for (LocalDate day = first.atZone(zone).toLocalDate(); occurrences.size() < limit; day = day.plusDays(1)) {
+            Instant occurrence = ZonedDateTime.of(day, time, zone).toInstant();
+            if (!occurrence.isBefore(to) || (endsAt != null && occurrence.isAfter(endsAt))) {
+                break;
+            }
+            if (series.getDaysOfWeek().contains(day.getDayOfWeek()) && !occurrence.isBefore(first)) {
+                occurrences.add(occurrence);
+            }
+        }
+        return occurrences;
+    }
+
+    /**
+     * Writes the occurrences from the current horizon of the series up to {@code end} and moves its horizon there.
+     */
+    private void materialize(SessionSeries series, Instant end) {
+        Instant materializedUntil = series.getMaterializedUntil().toInstant();
+        if (!end.isAfter(materializedUntil)) {
+            return;
+        }
+
+        List<Session> sessions = occurrences(series, materializedUntil, end, Integer.MAX_VALUE).stream()
+                .map(date -> new Session()
+                        .setName(series.getName())
+                        .setDescription(series.getDescription())
+                        .setTeacher(series.getTeacher())
+                        .setCapacity(series.getCapacity())
+                        .setDate(Date.from(date))
+                        .setSeriesId(series.getId()))
+                .collect(Collectors.toList());
+
+        series.setMaterializedUntil(Date.from(end));
+        this.sessionSeriesRepository.save(series);
+        this.sessionService.createAll(sessions);
+    }
+
+    /**
+     * Ends at midnight UTC, so it moves once a day rather than on every call.
+     */
+    private Instant horizonEnd() {
+        return Instant.now().plus(this.horizon).truncatedTo(ChronoUnit.DAYS);
+    }
+
+    private SessionDto toDto(SessionSeries series, Instant date) {
+        SessionDto sessionDto = new SessionDto();
+        sessionDto.setName(series.getName());
+        sessionDto.setDate(Date.from(date));
+        sessionDto.setTeacher_id(series.getTeacher() != null ? series.getTeacher().getId() : null);
+        sessionDto.setDescription(series.getDescription());
+        sessionDto.setCapacity(series.getCapacity());
+        sessionDto.setUsers(Collections.emptyList());
+        sessionDto.setSeries_id(series.getId());
+        return sessionDto;
+    }
+
+    private static void check(SessionSeries series) {
+        try {
+            ZoneId.of(series.getZone());
+        } catch (DateTimeException e) {
+            throw new BadRequestException();
+        }
+
+        if (series.getTeacher() == null || series.getDaysOfWeek() == null || series.getDaysOfWeek().isEmpty()
+                || (series.getOccurrenceCount() != null && (series.getOccurrenceCount() < 1 || series.getUntil() != null))
+                || (series.getUntil() != null && series.getUntil().before(series.getStart()))) {
+            throw new BadRequestException();
+        }
+    }
+
+    private static Instant later(Instant first, Instant second) {
+        return first.isAfter(second) ? first : second;
+    }
+
+    private static Instant last(List<Instant> instants) {
+        return instants.get(instants.size() - 1);
+    }
+}
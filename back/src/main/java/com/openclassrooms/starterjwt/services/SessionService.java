@@ -1,29 +1,91 @@
 package com.openclassrooms.starterjwt.services;
 
+import com.openclassrooms.starterjwt.dto.ParticipationResult;
+import com.openclassrooms.starterjwt.dto.ResourceVersion;
+import com.openclassrooms.starterjwt.dto.SessionCursor;
 import com.openclassrooms.starterjwt.exception.BadRequestException;
 import com.openclassrooms.starterjwt.exception.NotFoundException;
 import com.openclassrooms.starterjwt.models.Session;
-import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.repository.SessionParticipant;
 import com.openclassrooms.starterjwt.repository.SessionRepository;
+import com.openclassrooms.starterjwt.repository.SessionSeats;
+import com.openclassrooms.starterjwt.repository.SessionVersion;
 import com.openclassrooms.starterjwt.repository.UserRepository;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
+@Timed("service")
 public class SessionService {
+    public static final int MAX_PAGE_SIZE = 100;
+
+    private static final String PARTICIPANTS_ROLE = Session.class.getName() + ".users";
+
     private final SessionRepository sessionRepository;
 
     private final UserRepository userRepository;
 
-    public SessionService(SessionRepository sessionRepository, UserRepository userRepository) {
+    private final EntityManagerFactory entityManagerFactory;
+
+    private final Cache secondLevelCache;
+
+    private final int batchSize;
+
+    public SessionService(SessionRepository sessionRepository, UserRepository userRepository,
+                          EntityManagerFactory entityManagerFactory,
+                          @Value("${oc.app.import.batchSize}") int batchSize) {
         this.sessionRepository = sessionRepository;
         this.userRepository = userRepository;
+        this.entityManagerFactory = entityManagerFactory;
+        this.secondLevelCache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+        this.batchSize = batchSize;
     }
 
+    @Transactional
     public Session create(Session session) {
-        return this.sessionRepository.save(session);
+        checkCapacity(session);
+
+        Session created = this.sessionRepository.saveAndFlush(session);
+        this.sessionRepository.refreshParticipantCount(created.getId());
+        return created;
+    }
+
+    /**
+     * Inserts validated sessions without participants, flushing every {@code oc.app.import.batchSize} sessions as one
+     * JDBC batch and detaching them, so the persistence context never holds more than one batch. Ids come from the
+     * table generator of {@link Session}, which does not need an insert per id the way IDENTITY would.
+     */
+    @Transactional
+    public void createAll(List<Session> sessions) {
+        EntityManager entityManager = EntityManagerFactoryUtils.getTransactionalEntityManager(this.entityManagerFactory);
+        for (int from = 0; from < sessions.size(); from += this.batchSize) {
+            this.sessionRepository.saveAll(sessions.subList(from, Math.min(from + this.batchSize, sessions.size())));
+            this.sessionRepository.flush();
+            entityManager.clear();
+        }
     }
 
     public void delete(Long id) {
@@ -34,45 +96,252 @@ public class SessionService {
         return this.sessionRepository.findAll();
     }
 
+    /**
+     * Version of the whole session list, read with a single aggregate query instead of loading the sessions.
+     */
+    public ResourceVersion findAllVersion() {
+        SessionVersion version = this.sessionRepository.findVersion();
+
+        return ResourceVersion.of(version.getUpdatedAt(), version.getCount(), version.getIdSum(), version.getVersionSum());
+    }
+
+    public Slice<Session> findPage(Long teacherId, Date from, Date to, SessionCursor after, int size) {
+        if (size < 1) {
+            throw new BadRequestException();
+        }
+
+        return this.sessionRepository.findPage(
+                teacherId,
+                from,
+                to,
+                after != null ? after.getDate() : null,
+                after != null ? after.getId() : null,
+                PageRequest.of(0, Math.min(size, MAX_PAGE_SIZE)));
+    }
+
+    /**
+     * Hands the matching sessions to the consumer page by page, in (date, id) order, with the participant ids of the
+     * page. Each page is detached from the persistence context once consumed, so reading the whole table keeps no
+     * more than one page in memory.
+     */
+    public void forEachPage(Long teacherId, Date from, Date to, PageConsumer consumer) throws IOException {
+        SessionCursor after = null;
+        Slice<Session> page;
+        do {
+            page = findPage(teacherId, from, to, after, MAX_PAGE_SIZE);
+            if (!page.hasContent()) {
+                return;
+            }
+
+            List<Session> sessions = page.getContent();
+            consumer.accept(sessions, findParticipantIds(sessions.stream().map(Session::getId).collect(Collectors.toList())));
+
+            Session last = sessions.get(sessions.size() - 1);
+            after = new SessionCursor(last.getDate(), last.getId());
+            EntityManager entityManager = EntityManagerFactoryUtils.getTransactionalEntityManager(this.entityManagerFactory);
+            if (entityManager != null) {
+                entityManager.clear();
+            }
+        } while (page.hasNext());
+    }
+
+    /**
+     * Participant ids of every session, keyed by session id, read from PARTICIPATE without loading any User.
+     */
+    public Map<Long, List<Long>> findParticipantIds() {
+        return groupBySession(this.sessionRepository.findAllParticipants());
+    }
+
+    /**
+     * Participant ids of the given sessions, keyed by session id. Sessions without participants are absent.
+     */
+    public Map<Long, List<Long>> findParticipantIds(Collection<Long> sessionIds) {
+        if (sessionIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        return groupBySession(this.sessionRepository.findParticipants(sessionIds));
+    }
+
     public Session getById(Long id) {
         return this.sessionRepository.findById(id).orElse(null);
     }
 
+    /**
+     * Replaces the session, keeping the series it belongs to: only {@link SessionSeriesService} links a session to a
+     * series.
+     */
+    @Transactional
     public Session update(Long id, Session session) {
+        checkCapacity(session);
+
         session.setId(id);
-        return this.sessionRepository.save(session);
+        session.setSeriesId(this.sessionRepository.findById(id).map(Session::getSeriesId).orElse(null));
+        Session updated = this.sessionRepository.saveAndFlush(session);
+        this.sessionRepository.refreshParticipantCount(id);
+        return updated;
     }
 
+    /**
+     * Takes a seat with a conditional counter update, then inserts the PARTICIPATE row.
+     * The session row lock taken by the counter update is the only serialization point, and the
+     * PARTICIPATE primary key rejects a duplicate that would slip through two concurrent requests.
+     */
+    @Transactional
     public void participate(Long id, Long userId) {
-        Session session = this.sessionRepository.findById(id).orElse(null);
-        User user = this.userRepository.findById(userId).orElse(null);
-        if (session == null || user == null) {
+        if (!this.userRepository.existsById(userId)) {
             throw new NotFoundException();
         }
 
-        boolean alreadyParticipate = session.getUsers().stream().anyMatch(o -> o.getId().equals(userId));
-        if(alreadyParticipate) {
+        if (this.sessionRepository.reserveSeat(id) == 0) {
+            if (!this.sessionRepository.existsById(id)) {
+                throw new NotFoundException();
+            }
             throw new BadRequestException();
         }
 
-        session.getUsers().add(user);
+        try {
+            if (this.sessionRepository.insertParticipant(id, userId) == 0) {
+                throw new BadRequestException();
+            }
+        } catch (DataIntegrityViolationException e) {
+            throw new BadRequestException();
+        }
 
-        this.sessionRepository.save(session);
+        evictParticipants(id);
     }
 
+    /**
+     * Deletes the single PARTICIPATE row and gives the seat back, whatever the size of the class.
+     */
+    @Transactional
     public void noLongerParticipate(Long id, Long userId) {
-        Session session = this.sessionRepository.findById(id).orElse(null);
-        if (session == null) {
-            throw new NotFoundException();
+        if (this.sessionRepository.deleteParticipant(id, userId) == 0) {
+            if (!this.sessionRepository.existsById(id)) {
+                throw new NotFoundException();
+            }
+            throw new BadRequestException();
         }
 
-        boolean alreadyParticipate = session.getUsers().stream().anyMatch(o -> o.getId().equals(userId));
-        if(!alreadyParticipate) {
-            throw new BadRequestException();
+        this.sessionRepository.releaseSeat(id);
+        evictParticipants(id);
+    }
+
+    /**
+     * Enrolls the users, in the given order, until the session is full. Existence and current participation of all
+     * the users are read in one query and the new PARTICIPATE rows are written in one JDBC batch. The session row is
+     * locked first, so concurrent participations of the session wait instead of overbooking it.
+     */
+    @Transactional
+    public List<ParticipationResult> participateAll(Long id, Collection<Long> userIds) {
+        SessionSeats seats = this.sessionRepository.lockSeats(id).orElseThrow(NotFoundException::new);
+        Map<Long, Boolean> participating = findParticipation(id, userIds);
+        int seatsLeft = seats.getCapacity() != null
+                ? seats.getCapacity() - seats.getParticipantCount()
+                : Integer.MAX_VALUE;
+
+        List<Long> enrolled = new ArrayList<>();
+        List<ParticipationResult> results = new ArrayList<>();
+        for (Long userId : new LinkedHashSet<>(userIds)) {
+            ParticipationResult.Outcome outcome;
+            if (!participating.containsKey(userId)) {
+                outcome = ParticipationResult.Outcome.USER_NOT_FOUND;
+            } else if (participating.get(userId)) {
+                outcome = ParticipationResult.Outcome.ALREADY_PARTICIPATING;
+            } else if (enrolled.size() >= seatsLeft) {
+                outcome = ParticipationResult.Outcome.SESSION_FULL;
+            } else {
+                enrolled.add(userId);
+                outcome = ParticipationResult.Outcome.ENROLLED;
+            }
+            results.add(new ParticipationResult(userId, outcome));
+        }
+
+        if (!enrolled.isEmpty()) {
+            this.sessionRepository.insertParticipants(id, enrolled);
+            this.sessionRepository.refreshParticipantCount(id);
+            evictParticipants(id);
+        }
+        return results;
+    }
+
+    /**
+     * Unenrolls the users with one query to read their participation and one JDBC batch of PARTICIPATE deletes,
+     * under the same session row lock as {@link #participateAll}.
+     */
+    @Transactional
+    public List<ParticipationResult> noLongerParticipateAll(Long id, Collection<Long> userIds) {
+        this.sessionRepository.lockSeats(id).orElseThrow(NotFoundException::new);
+        Map<Long, Boolean> participating = findParticipation(id, userIds);
+
+        List<Long> unenrolled = new ArrayList<>();
+        List<ParticipationResult> results = new ArrayList<>();
+        for (Long userId : new LinkedHashSet<>(userIds)) {
+            ParticipationResult.Outcome outcome;
+            if (!participating.containsKey(userId)) {
+                outcome = ParticipationResult.Outcome.USER_NOT_FOUND;
+            } else if (!participating.get(userId)) {
+                outcome = ParticipationResult.Outcome.NOT_PARTICIPATING;
+            } else {
+                unenrolled.add(userId);
+                outcome = ParticipationResult.Outcome.UNENROLLED;
+            }
+            results.add(new ParticipationResult(userId, outcome));
+        }
+
+        if (!unenrolled.isEmpty()) {
+            this.sessionRepository.deleteParticipants(id, unenrolled);
+            this.sessionRepository.refreshParticipantCount(id);
+            evictParticipants(id);
+        }
+        return results;
+    }
+
+    /**
+     * Whether each existing user participates in the session, keyed by user id. Users that do not exist are absent.
+     */
+    private Map<Long, Boolean> findParticipation(Long id, Collection<Long> userIds) {
+        return this.sessionRepository.findParticipation(id, userIds).stream().collect(Collectors.toMap(
+                SessionParticipant::getUserId,
+                participant -> participant.getSessionId() != null));
+    }
+
+    /**
+     * The native PARTICIPATE writes bypass the cached participants of the session. Hibernate invalidates the sessions
+     * region itself, but reaches collection regions only through their element entity, so the entry is evicted here,
+     * once the transaction completes so that a concurrent read cannot cache the old rows again.
+     */
+    private void evictParticipants(Long id) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    secondLevelCache.evictCollectionData(PARTICIPANTS_ROLE, id);
+                }
+            });
+        } else {
+            this.secondLevelCache.evictCollectionData(PARTICIPANTS_ROLE, id);
         }
+    }
+
+    /**
+     * Receives one page of sessions and their participant ids, keyed by session id.
+     */
+    @FunctionalInterface
+    public interface PageConsumer {
+        void accept(List<Session> sessions, Map<Long, List<Long>> participants) throws IOException;
+    }
 
-        session.setUsers(session.getUsers().stream().filter(user -> !user.getId().equals(userId)).collect(Collectors.toList()));
+    private static void checkCapacity(Session session) {
+        if (session.getCapacity() != null && session.getUsers() != null
+                && session.getUsers().size() > session.getCapacity()) {
+            throw new BadRequestException();
+        }
+    }
 
-        this.sessionRepository.save(session);
+    private static Map<Long, List<Long>> groupBySession(List<SessionParticipant> participants) {
+        return participants.stream().collect(Collectors.groupingBy(
+                SessionParticipant::getSessionId,
+                Collectors.mapping(SessionParticipant::getUserId, Collectors.toList())));
     }
 }
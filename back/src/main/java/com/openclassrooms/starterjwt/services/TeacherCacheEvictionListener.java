@@ -0,0 +1,51 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.config.CacheConfig;
+import com.openclassrooms.starterjwt.models.Teacher;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+/**
+ * Drops the cached teacher and the cached teacher list when a teacher is created, updated or deleted.
+ * The eviction waits for the end of the transaction so a concurrent read cannot cache the old rows again.
+ */
+public class TeacherCacheEvictionListener {
+    private final CacheManager cacheManager;
+
+    public TeacherCacheEvictionListener(CacheManager cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void evict(Teacher teacher) {
+        Cache cache = cacheManager.getCache(CacheConfig.TEACHERS);
+        if (cache == null) {
+            return;
+        }
+
+        Long id = teacher.getId();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evict(cache, id);
+                }
+            });
+        } else {
+            evict(cache, id);
+        }
+    }
+
+    private static void evict(Cache cache, Long id) {
+        cache.evict(id);
+        cache.evict(TeacherService.ALL);
+    }
+}
@@ -1,23 +1,35 @@
 package com.openclassrooms.starterjwt.services;
 
+import com.openclassrooms.starterjwt.config.CacheConfig;
 import com.openclassrooms.starterjwt.models.Teacher;
 import com.openclassrooms.starterjwt.repository.TeacherRepository;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
 
+/**
+ * Teachers are read far more often than they change, so lookups are cached. {@link TeacherCacheEvictionListener}
+ * drops the cached entries when a teacher is written.
+ */
 @Service
+@Timed("service")
 public class TeacherService {
+    static final String ALL = "all";
+
     private final TeacherRepository teacherRepository;
 
     public TeacherService(TeacherRepository teacherRepository) {
         this.teacherRepository = teacherRepository;
     }
 
+    @Cacheable(cacheNames = CacheConfig.TEACHERS, key = "'" + ALL + "'")
     public List<Teacher> findAll() {
         return this.teacherRepository.findAll();
     }
 
+    @Cacheable(cacheNames = CacheConfig.TEACHERS, key = "#id", unless = "#result == null")
     public Teacher findById(Long id) {
         return this.teacherRepository.findById(id).orElse(null);
     }
@@ -0,0 +1,28 @@
+-- Seat counters of the capacity-aware participation. participant_count is maintained by the application from now on
+-- and starts from the rows below, once duplicates are gone.
+ALTER TABLE `SESSIONS` ADD COLUMN `capacity` INT;
+ALTER TABLE `SESSIONS` ADD COLUMN `participant_count` INT NOT NULL DEFAULT 0;
+
+-- The baseline PARTICIPATE has no key, so a participation may have been stored twice or with a missing side. Only
+-- one complete row of each pair is kept before the primary key is added.
+CREATE TABLE `PARTICIPATE_DISTINCT` AS
+  SELECT DISTINCT `user_id`, `session_id` FROM `PARTICIPATE` WHERE `user_id` IS NOT NULL AND `session_id` IS NOT NULL;
+DELETE FROM `PARTICIPATE`;
+INSERT INTO `PARTICIPATE` (`user_id`, `session_id`) SELECT `user_id`, `session_id` FROM `PARTICIPATE_DISTINCT`;
+DROP TABLE `PARTICIPATE_DISTINCT`;
+
+-- Serves the participants of a session. The reverse lookup, the sessions of a user, is served by the index of the
+-- PARTICIPATE.user_id foreign key, whose entries end with the primary key columns, i.e. (user_id, session_id).
+ALTER TABLE `PARTICIPATE` MODIFY `user_id` INT NOT NULL;
+ALTER TABLE `PARTICIPATE` MODIFY `session_id` INT NOT NULL;
+ALTER TABLE `PARTICIPATE` ADD PRIMARY KEY (`session_id`, `user_id`);
+
+UPDATE `SESSIONS` s SET `participant_count` = (SELECT COUNT(*) FROM `PARTICIPATE` p WHERE p.`session_id` = s.`id`);
+
+-- Keyset pagination of sessions ordered by (date, id), with and without a teacher filter.
+-- The teacher index also serves the SESSIONS.teacher_id foreign key.
+CREATE INDEX `idx_sessions_date_id` ON `SESSIONS` (`date`, `id`);
+CREATE INDEX `idx_sessions_teacher_date_id` ON `SESSIONS` (`teacher_id`, `date`, `id`);
+
+-- Login and every authenticated request without a cached principal look the user up by email.
+CREATE UNIQUE INDEX `uk_users_email` ON `USERS` (`email`);
@@ -0,0 +1,8 @@
+-- Session ids are handed out by Hibernate in blocks read from this table instead of by AUTO_INCREMENT, which lets it
+-- batch session inserts. next_val is the first id of the next block.
+CREATE TABLE `ID_GENERATORS` (
+  `sequence_name` VARCHAR(40) PRIMARY KEY,
+  `next_val` BIGINT NOT NULL
+);
+
+INSERT INTO `ID_GENERATORS` (`sequence_name`, `next_val`) SELECT 'sessions', COALESCE(MAX(`id`), 0) + 1 FROM `SESSIONS`;
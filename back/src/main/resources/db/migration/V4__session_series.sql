@@ -0,0 +1,28 @@
+-- Template of a weekly recurring session. Its occurrences before materialized_until exist as SESSIONS rows; the later
+-- ones are computed when read and written as the horizon moves forward. ends_at is the last occurrence, or null for a
+-- series without end.
+CREATE TABLE `SESSION_SERIES` (
+  `id` INT PRIMARY KEY AUTO_INCREMENT,
+  `name` VARCHAR(50),
+  `description` VARCHAR(2000),
+  `teacher_id` INT,
+  `capacity` INT,
+  `start_date` DATETIME NOT NULL,
+  `time_zone` VARCHAR(40) NOT NULL,
+  `days_of_week` VARCHAR(70) NOT NULL,
+  `occurrence_count` INT,
+  `until_date` DATETIME,
+  `ends_at` DATETIME,
+  `materialized_until` DATETIME NOT NULL,
+  `created_at` TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+  `updated_at` DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+);
+
+ALTER TABLE `SESSION_SERIES` ADD FOREIGN KEY (`teacher_id`) REFERENCES `TEACHERS` (`id`);
+
+-- Series whose horizon is behind the requested range or the next materialization.
+CREATE INDEX `idx_session_series_materialized` ON `SESSION_SERIES` (`materialized_until`);
+
+ALTER TABLE `SESSIONS` ADD COLUMN `series_id` INT;
+ALTER TABLE `SESSIONS` ADD FOREIGN KEY (`series_id`) REFERENCES `SESSION_SERIES` (`id`);
+CREATE INDEX `idx_sessions_series_date` ON `SESSIONS` (`series_id`, `date`);
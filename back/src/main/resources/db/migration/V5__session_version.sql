@@ -0,0 +1,3 @@
+-- Bumped by every write of a session or of its participants. updated_at has a one-second precision, so two changes
+-- within the same second, such as one user leaving and another joining, would otherwise leave the ETag unchanged.
+ALTER TABLE `SESSIONS` ADD COLUMN `version` BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,4 @@
+-- With explicit_defaults_for_timestamp off, the default before MySQL 8, the first TIMESTAMP column of the baseline
+-- SESSIONS table, date, was given DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP. Every seat counter or
+-- version update then moved the session to the time of the update. date is redefined without either.
+ALTER TABLE `SESSIONS` MODIFY `date` TIMESTAMP NULL DEFAULT NULL;
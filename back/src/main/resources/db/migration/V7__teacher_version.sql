@@ -0,0 +1,3 @@
+-- Incremented by Hibernate on every update of a teacher, so that two changes within the one-second precision of
+-- updated_at still change the ETag of the teacher and of the teacher list.
+ALTER TABLE `TEACHERS` ADD COLUMN `version` BIGINT NOT NULL DEFAULT 0;
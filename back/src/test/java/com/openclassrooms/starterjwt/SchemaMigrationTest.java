@@ -0,0 +1,44 @@
+package com.openclassrooms.starterjwt;
+
+import org.flywaydb.core.Flyway;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the Flyway migrations on a database created from ressources/sql/script.sql, whose schema is V1
+ */
+public class SchemaMigrationTest {
+
+    /**
+     * Tests that a database created from the script is baselined and gets the seat counters and the PARTICIPATE
+     * primary key, with duplicate and incomplete participations removed
+     */
+    @Test
+    public void testMigrateScriptDatabase() {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:script;MODE=MySQL;DATABASE_TO_LOWER=TRUE;CASE_INSENSITIVE_IDENTIFIERS=TRUE;DB_CLOSE_DELAY=-1");
+        new ResourceDatabasePopulator(new ClassPathResource("db/migration/V1__baseline.sql")).execute(dataSource);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.update("INSERT INTO SESSIONS (name, description, date, teacher_id) VALUES ('Yoga', 'Legacy', NOW(), 1)");
+        Long sessionId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM SESSIONS", Long.class);
+        jdbcTemplate.update("INSERT INTO PARTICIPATE (user_id, session_id) VALUES (1, ?), (1, ?), (NULL, ?)", sessionId, sessionId, sessionId);
+
+        Flyway.configure()
+                .dataSource(dataSource)
+                .baselineOnMigrate(true)
+                .baselineVersion("1")
+                .load()
+                .migrate();
+
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM PARTICIPATE", Integer.class));
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT participant_count FROM SESSIONS WHERE id = ?", Integer.class, sessionId));
+        assertThrows(DuplicateKeyException.class,
+                () -> jdbcTemplate.update("INSERT INTO PARTICIPATE (user_id, session_id) VALUES (1, ?)", sessionId));
+    }
+}
@@ -1,13 +1,73 @@
 package com.openclassrooms.starterjwt;
 
+import com.openclassrooms.starterjwt.services.TeacherService;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.metrics.AutoConfigureMetrics;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.boot.test.web.server.LocalManagementPort;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 
-@SpringBootTest
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = "management.server.port=0")
+@AutoConfigureMetrics
 public class SpringBootSecurityJwtApplicationTests {
 
+	@Autowired
+	private TestRestTemplate restTemplate;
+
+	@Autowired
+	private TeacherService teacherService;
+
+	@LocalServerPort
+	private int port;
+
+	@LocalManagementPort
+	private int managementPort;
+
 	@Test
 	public void contextLoads() {
 	}
 
+	/**
+	 * Tests that the Prometheus scrape endpoint is open to a scraper on the management port and exposes the service
+	 * timers, JWT and Hibernate metrics
+	 */
+	@Test
+	public void prometheusEndpointExposesMetrics() {
+		teacherService.findAll();
+		HttpHeaders headers = new HttpHeaders();
+		headers.setBearerAuth("invalid");
+		restTemplate.exchange("http://127.0.0.1:" + port + "/api/teacher", HttpMethod.GET, new HttpEntity<>(headers), String.class);
+
+		ResponseEntity<String> response = restTemplate.getForEntity("http://127.0.0.1:" + managementPort + "/actuator/prometheus", String.class);
+
+		assertEquals(HttpStatus.OK, response.getStatusCode());
+		assertThat(response.getBody(), containsString("service_seconds_count{class=\"com.openclassrooms.starterjwt.services.TeacherService\""));
+		assertThat(response.getBody(), containsString("jwt_validations_total{result=\"malformed\""));
+		assertThat(response.getBody(), containsString("hibernate_statements_total"));
+		assertThat(response.getBody(), containsString("http_server_requests_seconds_bucket"));
+	}
+
+	/**
+	 * Tests that the public port does not serve the actuator endpoints, even to a loopback client such as a reverse
+	 * proxy on the same host, and that health stays open without authentication
+	 */
+	@Test
+	public void actuatorIsNotServedOnThePublicPort() {
+		assertNotEquals(HttpStatus.OK, restTemplate.getForEntity("http://127.0.0.1:" + port + "/actuator/prometheus", String.class).getStatusCode());
+		assertNotEquals(HttpStatus.OK, restTemplate.getForEntity("http://127.0.0.1:" + port + "/actuator/health", String.class).getStatusCode());
+		assertEquals(HttpStatus.OK, restTemplate.getForEntity("http://127.0.0.1:" + managementPort + "/actuator/health", String.class).getStatusCode());
+	}
+
 }
@@ -0,0 +1,92 @@
+package com.openclassrooms.starterjwt.benchmark;
+
+import com.openclassrooms.starterjwt.config.CacheConfig;
+import com.openclassrooms.starterjwt.security.jwt.AuthTokenFilter;
+import com.openclassrooms.starterjwt.security.jwt.JwtUtils;
+import com.openclassrooms.starterjwt.security.jwt.VerifiedTokenCache;
+import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
+import com.openclassrooms.starterjwt.security.services.UserDetailsServiceImpl;
+
+import org.openjdk.jmh.annotations.*;
+
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.support.NoOpCacheManager;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Measures {@code AuthTokenFilter} on a request carrying a valid bearer token, with the principal lookup stubbed.
+ * {@code verifiedTokenCache} compares a filter that verifies every token with one that reuses verified tokens.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuthTokenFilterBenchmark {
+
+    @Param({"false", "true"})
+    private boolean verifiedTokenCache;
+
+    private AuthTokenFilter authTokenFilter;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+    private FilterChain filterChain;
+
+    /**
+     * Builds the filter around a real JwtUtils and a stubbed UserDetailsServiceImpl
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        JwtUtils jwtUtils = new JwtUtils();
+        ReflectionTestUtils.setField(jwtUtils, "jwtSecret", "openclassrooms");
+        ReflectionTestUtils.setField(jwtUtils, "jwtExpirationMs", 86400000);
+
+        UserDetailsImpl principal = new UserDetailsImpl(1L, "bench@yoga.fr", "Bench", "User", false, null);
+        Authentication authentication = new UsernamePasswordAuthenticationToken(principal, null, Collections.emptyList());
+        String token = jwtUtils.generateJwtToken(authentication);
+
+        UserDetailsServiceImpl userDetailsService = mock(UserDetailsServiceImpl.class, withSettings().stubOnly());
+        when(userDetailsService.loadPrincipalByUsername(anyString())).thenReturn(principal);
+
+        CacheManager cacheManager = new NoOpCacheManager();
+        if (verifiedTokenCache) {
+            CacheConfig cacheConfig = new CacheConfig();
+            ReflectionTestUtils.setField(cacheConfig, "principalsSpec", "maximumSize=10000");
+            ReflectionTestUtils.setField(cacheConfig, "tokensSpec", "maximumSize=10000");
+            ReflectionTestUtils.setField(cacheConfig, "teachersSpec", "maximumSize=1000");
+            cacheManager = cacheConfig.cacheManager();
+        }
+
+        authTokenFilter = new AuthTokenFilter();
+        ReflectionTestUtils.setField(authTokenFilter, "verifiedTokens", new VerifiedTokenCache(jwtUtils, cacheManager));
+        ReflectionTestUtils.setField(authTokenFilter, "userDetailsService", userDetailsService);
+
+        request = new MockHttpServletRequest("GET", "/api/session");
+        request.addHeader("Authorization", "Bearer " + token);
+        response = new MockHttpServletResponse();
+        filterChain = (servletRequest, servletResponse) -> { };
+    }
+
+    @Benchmark
+    public Authentication doFilter() throws ServletException, IOException {
+        authTokenFilter.doFilter(request, response, filterChain);
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        SecurityContextHolder.clearContext();
+        return authentication;
+    }
+}
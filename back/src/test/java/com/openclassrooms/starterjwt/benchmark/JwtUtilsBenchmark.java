@@ -0,0 +1,59 @@
+package com.openclassrooms.starterjwt.benchmark;
+
+import com.openclassrooms.starterjwt.security.jwt.JwtClaims;
+import com.openclassrooms.starterjwt.security.jwt.JwtUtils;
+import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
+
+import org.openjdk.jmh.annotations.*;
+
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures token generation and verification in {@code JwtUtils}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtUtilsBenchmark {
+
+    private JwtUtils jwtUtils;
+    private Authentication authentication;
+    private String token;
+
+    /**
+     * Configures JwtUtils like application.properties and issues the token that is verified
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        jwtUtils = new JwtUtils();
+        ReflectionTestUtils.setField(jwtUtils, "jwtSecret", "openclassrooms");
+        ReflectionTestUtils.setField(jwtUtils, "jwtExpirationMs", 86400000);
+
+        UserDetailsImpl principal = new UserDetailsImpl(1L, "bench@yoga.fr", "Bench", "User", false, null);
+        authentication = new UsernamePasswordAuthenticationToken(principal, null, Collections.emptyList());
+        token = jwtUtils.generateJwtToken(authentication);
+    }
+
+    @Benchmark
+    public String generateJwtToken() {
+        return jwtUtils.generateJwtToken(authentication);
+    }
+
+    @Benchmark
+    public JwtClaims parseJwtToken() {
+        return jwtUtils.parseJwtToken(token);
+    }
+
+    @Benchmark
+    public boolean validateJwtToken() {
+        return jwtUtils.validateJwtToken(token);
+    }
+}
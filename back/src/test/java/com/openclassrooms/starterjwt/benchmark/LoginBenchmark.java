@@ -0,0 +1,111 @@
+package com.openclassrooms.starterjwt.benchmark;
+
+import com.openclassrooms.starterjwt.SpringBootSecurityJwtApplication;
+import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.repository.UserRepository;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.*;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import javax.persistence.EntityManagerFactory;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@code POST /api/auth/login} end to end, over HTTP, for each BCrypt strength, and reports the number of
+ * SQL statements per login. Runs against the database configured in application.properties.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LoginBenchmark {
+
+    private static final String EMAIL = "bench-login@yoga.fr";
+    private static final String PASSWORD = "password123!";
+
+    @Param({"10", "11", "12", "13"})
+    private int strength;
+
+    private ConfigurableApplicationContext context;
+    private UserRepository userRepository;
+    private Statistics statistics;
+    private HttpClient httpClient;
+    private HttpRequest loginRequest;
+
+    private User user;
+    private long logins;
+
+    /**
+     * Boots the application on a random port and creates the user that logs in, hashed with {@code strength}
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(SpringBootSecurityJwtApplication.class)
+                .run("--server.port=0",
+                        "--spring.jpa.show-sql=false",
+                        "--spring.jpa.properties.hibernate.generate_statistics=true",
+                        "--oc.app.password.strength=" + strength);
+        userRepository = context.getBean(UserRepository.class);
+        statistics = context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+
+        String password = context.getBean(PasswordEncoder.class).encode(PASSWORD);
+        user = userRepository.save(new User(EMAIL, "User", "Bench", password, false));
+
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        httpClient = HttpClient.newHttpClient();
+        loginRequest = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/auth/login"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(
+                        "{\"email\":\"" + EMAIL + "\",\"password\":\"" + PASSWORD + "\"}"))
+                .build();
+    }
+
+    /**
+     * Counts statements from the first measured iteration on
+     */
+    @Setup(Level.Iteration)
+    public void resetStatistics() {
+        statistics.clear();
+        logins = 0;
+    }
+
+    @Benchmark
+    public String login() throws IOException, InterruptedException {
+        HttpResponse<String> response = httpClient.send(loginRequest, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Login failed with status " + response.statusCode());
+        }
+        logins++;
+        return response.body();
+    }
+
+    /**
+     * Prints the number of statements issued per login during the iteration
+     */
+    @TearDown(Level.Iteration)
+    public void reportQueries() {
+        System.out.printf("%nstatements per login: %.2f%n", (double) statistics.getPrepareStatementCount() / logins);
+    }
+
+    /**
+     * Removes the benchmark user and closes the application
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        userRepository.delete(user);
+        context.close();
+    }
+}
@@ -0,0 +1,108 @@
+package com.openclassrooms.starterjwt.benchmark;
+
+import com.openclassrooms.starterjwt.SpringBootSecurityJwtApplication;
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.Teacher;
+import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+import com.openclassrooms.starterjwt.repository.TeacherRepository;
+import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.services.SessionService;
+
+import org.openjdk.jmh.annotations.*;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@code SessionService#noLongerParticipate} for classes of growing size.
+ * The cancellation must cost the same whatever the number of participants.
+ * Runs against the database configured in application.properties.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SessionCancellationBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int classSize;
+
+    private ConfigurableApplicationContext context;
+    private SessionService sessionService;
+    private SessionRepository sessionRepository;
+    private UserRepository userRepository;
+    private TeacherRepository teacherRepository;
+
+    private Teacher teacher;
+    private List<User> users;
+    private Long sessionId;
+    private Long cancellingUserId;
+
+    /**
+     * Boots the application and creates a session with {@code classSize} participants
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(SpringBootSecurityJwtApplication.class)
+                .run("--server.port=0", "--spring.jpa.show-sql=false");
+        sessionService = context.getBean(SessionService.class);
+        sessionRepository = context.getBean(SessionRepository.class);
+        userRepository = context.getBean(UserRepository.class);
+        teacherRepository = context.getBean(TeacherRepository.class);
+
+        teacher = teacherRepository.save(new Teacher().setFirstName("Bench").setLastName("Teacher"));
+
+        users = new ArrayList<>();
+        for (int i = 0; i < classSize; i++) {
+            users.add(new User("bench-" + classSize + "-" + i + "@yoga.fr", "Bench", "User", "password", false));
+        }
+        users = userRepository.saveAll(users);
+
+        // The cancelling user joins before each invocation, which brings the class to classSize
+        cancellingUserId = users.get(0).getId();
+
+        Session session = new Session()
+                .setName("Benchmark")
+                .setDescription("Cancellation benchmark")
+                .setDate(new Date())
+                .setTeacher(teacher)
+                .setUsers(new ArrayList<>(users.subList(1, classSize)));
+        sessionId = sessionService.create(session).getId();
+    }
+
+    /**
+     * Puts the cancelling user back in the class before each cancellation
+     */
+    @Setup(Level.Invocation)
+    public void rejoin() {
+        sessionService.participate(sessionId, cancellingUserId);
+    }
+
+    @Benchmark
+    public void noLongerParticipate() {
+        sessionService.noLongerParticipate(sessionId, cancellingUserId);
+    }
+
+    /**
+     * Removes the benchmark data and closes the application
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        sessionRepository.findById(sessionId).ifPresent(session -> {
+            session.setUsers(new ArrayList<>());
+            sessionRepository.saveAndFlush(session);
+        });
+        sessionRepository.deleteById(sessionId);
+        userRepository.deleteAll(users);
+        teacherRepository.delete(teacher);
+        context.close();
+    }
+}
@@ -0,0 +1,105 @@
+package com.openclassrooms.starterjwt.benchmark;
+
+import com.openclassrooms.starterjwt.dto.SessionDto;
+import com.openclassrooms.starterjwt.mapper.SessionMapper;
+import com.openclassrooms.starterjwt.mapper.SessionMapperImpl;
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.Teacher;
+import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.services.TeacherService;
+import com.openclassrooms.starterjwt.services.UserService;
+
+import org.openjdk.jmh.annotations.*;
+
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@code SessionMapper} on lists of sessions with {@link #PARTICIPANTS} participants each.
+ * The services answer from memory, so only the mapping itself is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SessionMapperBenchmark {
+
+    private static final int PARTICIPANTS = 20;
+
+    @Param({"100", "1000"})
+    private int sessionCount;
+
+    private SessionMapper sessionMapper;
+    private List<Session> sessions;
+    private Map<Long, List<Long>> participants;
+    private List<SessionDto> sessionDtos;
+
+    /**
+     * Builds the sessions, their participants and the matching DTOs
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        Teacher teacher = new Teacher().setId(1L).setFirstName("Bench").setLastName("Teacher");
+        List<User> users = new ArrayList<>();
+        List<Long> userIds = new ArrayList<>();
+        for (long i = 1; i <= PARTICIPANTS; i++) {
+            users.add(new User("bench-" + i + "@yoga.fr", "Bench", "User", "password", false).setId(i));
+            userIds.add(i);
+        }
+
+        TeacherService teacherService = new TeacherService(null) {
+            @Override
+            public Teacher findById(Long id) {
+                return teacher;
+            }
+        };
+        UserService userService = new UserService(null) {
+            @Override
+            public List<User> findAllById(Collection<Long> ids) {
+                return users;
+            }
+        };
+
+        sessionMapper = new SessionMapperImpl();
+        ReflectionTestUtils.setField(sessionMapper, "teacherService", teacherService);
+        ReflectionTestUtils.setField(sessionMapper, "userService", userService);
+
+        sessions = new ArrayList<>();
+        participants = new HashMap<>();
+        for (long id = 1; id <= sessionCount; id++) {
+            sessions.add(new Session()
+                    .setId(id)
+                    .setName("Session " + id)
+                    .setDescription("Benchmark session")
+                    .setDate(new Date())
+                    .setTeacher(teacher)
+                    .setUsers(users));
+            participants.put(id, userIds);
+        }
+        sessionDtos = sessionMapper.toDto(sessions, participants);
+    }
+
+    @Benchmark
+    public List<SessionDto> toDto() {
+        return sessionMapper.toDto(sessions);
+    }
+
+    @Benchmark
+    public List<SessionDto> toDtoWithParticipants() {
+        return sessionMapper.toDto(sessions, participants);
+    }
+
+    @Benchmark
+    public List<Session> toEntity() {
+        return sessionMapper.toEntity(sessionDtos);
+    }
+}
@@ -0,0 +1,58 @@
+package com.openclassrooms.starterjwt.config;
+
+import org.apache.coyote.http11.Http11NioProtocol;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.core.task.AsyncTaskExecutor;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the VirtualThreadConfig class
+ */
+public class VirtualThreadConfigTest {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withUserConfiguration(VirtualThreadConfig.class);
+
+    /**
+     * Tests that the platform Tomcat pool is kept unless virtual threads are enabled
+     */
+    @Test
+    public void testDisabledByDefault() {
+        contextRunner.run(context -> assertTrue(context.getBeansOfType(TomcatProtocolHandlerCustomizer.class).isEmpty()));
+        contextRunner.withPropertyValues("oc.app.virtualThreads=false")
+                .run(context -> assertTrue(context.getBeansOfType(TomcatProtocolHandlerCustomizer.class).isEmpty()));
+    }
+
+    /**
+     * Tests that Tomcat runs requests on virtual threads when enabled
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testTomcatExecutorUsesVirtualThreads() {
+        contextRunner.withPropertyValues("oc.app.virtualThreads=true").run(context -> {
+            Http11NioProtocol protocol = new Http11NioProtocol();
+            context.getBean(TomcatProtocolHandlerCustomizer.class).customize(protocol);
+
+            assertTrue(runsOnVirtualThread(protocol.getExecutor()));
+        });
+    }
+
+    /**
+     * Tests that asynchronous request processing runs on virtual threads when enabled
+     */
+    @Test
+    public void testApplicationTaskExecutorUsesVirtualThreads() {
+        contextRunner.withPropertyValues("oc.app.virtualThreads=true").run(context ->
+                assertTrue(runsOnVirtualThread(context.getBean("applicationTaskExecutor", AsyncTaskExecutor.class))));
+    }
+
+    private static boolean runsOnVirtualThread(Executor executor) throws Exception {
+        return CompletableFuture.supplyAsync(() -> Thread.currentThread().isVirtual(), executor).get();
+    }
+}
@@ -23,9 +23,10 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
-import java.util.Optional;
-
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -91,12 +92,6 @@ public class AuthControllerTest {
         when(authenticationManager.authenticate(any())).thenReturn(authentication);
         when(jwtUtils.generateJwtToken(any())).thenReturn("mocked-jwt-token");
 
-        User user = new User();
-        user.setEmail("user@yoga.fr");
-        user.setAdmin(false);
-
-        when(userRepository.findByEmail("user@yoga.fr")).thenReturn(Optional.of(user));
-
         mockMvc.perform(post("/api/auth/login")
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(loginRequest)))
@@ -105,7 +100,9 @@ public class AuthControllerTest {
                 .andExpect(jsonPath("$.username").value("user@yoga.fr"))
                 .andExpect(jsonPath("$.firstName").value("Test"))
                 .andExpect(jsonPath("$.lastName").value("User"))
-                .andExpect(jsonPath("$.admin").value(false));
+                .andExpect(jsonPath("$.admin").value(true));
+
+        verify(userRepository, never()).findByEmail(anyString());
     }
 
     /**
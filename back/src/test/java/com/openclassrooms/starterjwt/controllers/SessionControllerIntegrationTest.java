@@ -0,0 +1,308 @@
+package com.openclassrooms.starterjwt.controllers;
+
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.SessionSeries;
+import com.openclassrooms.starterjwt.models.Teacher;
+import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.monitoring.QueryCountFilter;
+import com.openclassrooms.starterjwt.repository.SessionSeriesRepository;
+import com.openclassrooms.starterjwt.repository.TeacherRepository;
+import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
+import com.openclassrooms.starterjwt.services.SessionService;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.time.DayOfWeek;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Integration tests pinning the number of SQL statements issued by the SessionController endpoints.
+ * The budgets must not grow with the number of sessions or participants.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Transactional
+class SessionControllerIntegrationTest {
+
+    private static final int SESSIONS = 5;
+    private static final int PARTICIPANTS = 10;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private SessionService sessionService;
+
+    @Autowired
+    private SessionSeriesRepository sessionSeriesRepository;
+
+    @Autowired
+    private TeacherRepository teacherRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private UserDetailsImpl principal;
+    private Long sessionId;
+    private Long participantId;
+    private Long newcomerId;
+    private List<User> participants;
+
+    /**
+     * Creates {@link #SESSIONS} sessions of {@link #PARTICIPANTS} participants, and a user in none of them
+     */
+    @BeforeEach
+    void setUp() {
+        entityManager.createNativeQuery("SET FOREIGN_KEY_CHECKS = 0").executeUpdate();
+        entityManager.createNativeQuery("DELETE FROM participate").executeUpdate();
+        entityManager.createNativeQuery("DELETE FROM sessions").executeUpdate();
+        entityManager.createNativeQuery("DELETE FROM users").executeUpdate();
+        entityManager.createNativeQuery("DELETE FROM teachers").executeUpdate();
+        entityManager.createNativeQuery("SET FOREIGN_KEY_CHECKS = 1").executeUpdate();
+
+        Teacher teacher = teacherRepository.save(new Teacher().setFirstName("Test").setLastName("Teacher"));
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i <= PARTICIPANTS; i++) {
+            users.add(new User("user" + i + "@yoga.fr", "User", "Test", "password", false));
+        }
+        users = userRepository.saveAll(users);
+        newcomerId = users.get(PARTICIPANTS).getId();
+        participantId = users.get(0).getId();
+        participants = users.subList(0, PARTICIPANTS);
+
+        for (int i = 0; i < SESSIONS; i++) {
+            Session session = sessionService.create(new Session()
+                    .setName("Session " + i)
+                    .setDescription("Description")
+                    .setDate(new Date())
+                    .setTeacher(teacher)
+                    .setUsers(new ArrayList<>(participants)));
+            sessionId = session.getId();
+        }
+
+        entityManager.flush();
+        entityManager.clear();
+        principal = UserDetailsImpl.builder().id(newcomerId).username("user@yoga.fr").build();
+    }
+
+    /**
+     * Tests that listing the sessions reads the list version, the sessions, then all their participants at once
+     */
+    @Test
+    void findAllQueryBudget() throws Exception {
+        assertEquals(3, queries(get("/api/session").with(user(principal))));
+    }
+
+    /**
+     * Tests that revalidating an unchanged list only reads its version
+     */
+    @Test
+    void findAllNotModifiedQueryBudget() throws Exception {
+        String eTag = mockMvc.perform(get("/api/session").with(user(principal))).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        assertEquals(1, queries(get("/api/session").header(HttpHeaders.IF_NONE_MATCH, eTag).with(user(principal)), HttpStatus.NOT_MODIFIED));
+    }
+
+    /**
+     * Tests that a participation changes the version of the list
+     */
+    @Test
+    void findAllModifiedByParticipation() throws Exception {
+        String eTag = mockMvc.perform(get("/api/session").with(user(principal))).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        sessionService.participate(sessionId, newcomerId);
+
+        mockMvc.perform(get("/api/session").header(HttpHeaders.IF_NONE_MATCH, eTag).with(user(principal)))
+                .andExpect(status().isOk());
+    }
+
+    /**
+     * Tests that a session deleted and another created within the same second, leaving the count, the last update and
+     * the participant total unchanged, change the version of the list
+     */
+    @Test
+    void findAllModifiedByDeleteAndCreateWithinASecond() throws Exception {
+        Object updatedAt = entityManager.createNativeQuery("SELECT MAX(updated_at) FROM sessions").getSingleResult();
+        String eTag = mockMvc.perform(get("/api/session").with(user(principal))).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        sessionService.delete(sessionId);
+        sessionService.create(new Session()
+                .setName("Replacement")
+                .setDescription("Description")
+                .setDate(new Date())
+                .setTeacher(teacherRepository.findAll().get(0))
+                .setUsers(new ArrayList<>(participants)));
+        sameSecond(updatedAt);
+
+        mockMvc.perform(get("/api/session").header(HttpHeaders.IF_NONE_MATCH, eTag).with(user(principal)))
+                .andExpect(status().isOk());
+    }
+
+    /**
+     * Tests that a user leaving and another joining within the same second, leaving the last update and the seat
+     * counter unchanged, change the version of the session
+     */
+    @Test
+    void findByIdModifiedByLeaveAndJoinWithinASecond() throws Exception {
+        Object updatedAt = entityManager.createNativeQuery("SELECT updated_at FROM sessions WHERE id = :id")
+                .setParameter("id", sessionId).getSingleResult();
+        String eTag = mockMvc.perform(get("/api/session/" + sessionId).with(user(principal))).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        sessionService.noLongerParticipate(sessionId, participantId);
+        sessionService.participate(sessionId, newcomerId);
+        sameSecond(updatedAt);
+
+        MvcResult result = mockMvc.perform(get("/api/session/" + sessionId).header(HttpHeaders.IF_NONE_MATCH, eTag).with(user(principal)))
+                .andExpect(status().isOk())
+                .andReturn();
+        assertNotEquals(eTag, result.getResponse().getHeader(HttpHeaders.ETAG));
+        assertTrue(result.getResponse().getContentAsString().contains(String.valueOf(newcomerId)));
+    }
+
+    /**
+     * Tests that an update leaving out the series, or naming another one, keeps the session in its series
+     */
+    @Test
+    void updateKeepsSeries() throws Exception {
+        Teacher teacher = teacherRepository.findAll().get(0);
+        Long seriesId = sessionSeriesRepository.save(new SessionSeries()
+                .setName("Series")
+                .setDescription("Description")
+                .setTeacher(teacher)
+                .setStart(new Date())
+                .setZone("UTC")
+                .setDaysOfWeek(Set.of(DayOfWeek.MONDAY))
+                .setOccurrenceCount(1)
+                .setMaterializedUntil(new Date())).getId();
+        entityManager.createNativeQuery("UPDATE sessions SET series_id = :seriesId WHERE id = :id")
+                .setParameter("seriesId", seriesId)
+                .setParameter("id", sessionId)
+                .executeUpdate();
+        entityManager.clear();
+        String session = "{\"name\":\"Renamed\",\"date\":\"2030-01-07T10:00:00.000+00:00\",\"teacher_id\":" + teacher.getId()
+                + ",\"description\":\"Description\"";
+
+        mockMvc.perform(put("/api/session/" + sessionId).with(user(principal))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(session + "}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.series_id").value(seriesId));
+        mockMvc.perform(put("/api/session/" + sessionId).with(user(principal))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(session + ",\"series_id\":" + (seriesId + 1) + "}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.series_id").value(seriesId));
+        entityManager.clear();
+
+        assertEquals(seriesId, sessionService.getById(sessionId).getSeriesId());
+    }
+
+    /**
+     * Tests that reading a session reads it with its teacher, then its participants
+     */
+    @Test
+    void findByIdQueryBudget() throws Exception {
+        assertEquals(2, queries(get("/api/session/" + sessionId).with(user(principal))));
+    }
+
+    /**
+     * Tests that revalidating an unchanged session reads it without its participants
+     */
+    @Test
+    void findByIdNotModifiedQueryBudget() throws Exception {
+        String eTag = mockMvc.perform(get("/api/session/" + sessionId).with(user(principal))).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        entityManager.clear();
+
+        assertEquals(1, queries(get("/api/session/" + sessionId).header(HttpHeaders.IF_NONE_MATCH, eTag).with(user(principal)), HttpStatus.NOT_MODIFIED));
+    }
+
+    /**
+     * Tests that a page of sessions is read with its participants
+     */
+    @Test
+    void findPageQueryBudget() throws Exception {
+        assertEquals(2, queries(get("/api/session/page").with(user(principal))));
+    }
+
+    /**
+     * Tests that joining a session checks the user, reserves a seat and inserts a single row
+     */
+    @Test
+    void participateQueryBudget() throws Exception {
+        assertEquals(3, queries(post("/api/session/" + sessionId + "/participate/" + newcomerId).with(user(principal))));
+    }
+
+    /**
+     * Tests that leaving a session deletes a single row and gives the seat back
+     */
+    @Test
+    void noLongerParticipateQueryBudget() throws Exception {
+        Long participantId = userRepository.findByEmail("user0@yoga.fr").orElseThrow().getId();
+        entityManager.clear();
+
+        assertEquals(2, queries(delete("/api/session/" + sessionId + "/participate/" + participantId).with(user(principal))));
+    }
+
+    /**
+     * Sets the last update of every session back to the given one, as if all the writes had happened within its second
+     */
+    private void sameSecond(Object updatedAt) {
+        entityManager.flush();
+        entityManager.createNativeQuery("UPDATE sessions SET updated_at = :updatedAt")
+                .setParameter("updatedAt", updatedAt).executeUpdate();
+        entityManager.clear();
+    }
+
+    /**
+     * Tests that enrolling a group locks the session, reads the participation of every user at once and recomputes
+     * the seat counter, whatever the size of the group. The rows themselves are written in one JDBC batch, outside
+     * Hibernate, so they are not counted.
+     */
+    @Test
+    void participateAllQueryBudget() throws Exception {
+        String userIds = userRepository.findAll().stream().map(u -> u.getId().toString()).collect(Collectors.joining(","));
+        entityManager.clear();
+
+        assertEquals(3, queries(post("/api/session/" + sessionId + "/participate").with(user(principal))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"userIds\":[" + userIds + "]}")));
+    }
+
+    private int queries(RequestBuilder request) throws Exception {
+        return queries(request, HttpStatus.OK);
+    }
+
+    private int queries(RequestBuilder request, HttpStatus expected) throws Exception {
+        MvcResult result = mockMvc.perform(request).andExpect(status().is(expected.value())).andReturn();
+        return (Integer) result.getRequest().getAttribute(QueryCountFilter.QUERY_COUNT_ATTRIBUTE);
+    }
+}
@@ -4,9 +4,14 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.json.JsonMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 
+import com.openclassrooms.starterjwt.dto.ParticipationResult;
+import com.openclassrooms.starterjwt.dto.ResourceVersion;
+import com.openclassrooms.starterjwt.dto.SessionCursor;
 import com.openclassrooms.starterjwt.dto.SessionDto;
+import com.openclassrooms.starterjwt.dto.SessionImportResult;
 import com.openclassrooms.starterjwt.mapper.SessionMapper;
 import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.services.SessionImportService;
 import com.openclassrooms.starterjwt.services.SessionService;
 
 import org.junit.jupiter.api.BeforeAll;
@@ -16,14 +21,22 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
 import java.time.LocalDateTime;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -44,6 +57,9 @@ public class SessionControllerTest {
     @MockBean
     private SessionMapper sessionMapper;
 
+    @MockBean
+    private SessionImportService sessionImportService;
+
     private MockMvc mockMvc;
     private static ObjectMapper objectMapper;
     private static SessionDto sessionDto;
@@ -63,7 +79,9 @@ public class SessionControllerTest {
                 new Date(),
                 1L,
                 "Description Test",
+                20,
                 List.of(1L),
+                null,
                 now,
                 now
         );
@@ -73,6 +91,7 @@ public class SessionControllerTest {
         session.setName("Name Test");
         session.setDescription("Description Test");
         session.setId(1L);
+        session.setDate(new Date(1700000000000L));
         session.setCreatedAt(now);
         session.setUpdatedAt(now);
     }
@@ -90,14 +109,34 @@ public class SessionControllerTest {
      */
     @Test
     void testFindByIdSuccess() throws Exception {
+        Map<Long, List<Long>> participants = Map.of(1L, List.of(1L));
         when(sessionService.getById(1L)).thenReturn(session);
-        when(sessionMapper.toDto(session)).thenReturn(sessionDto);
+        when(sessionService.findParticipantIds(List.of(1L))).thenReturn(participants);
+        when(sessionMapper.toDto(session, participants)).thenReturn(sessionDto);
 
         mockMvc.perform(get("/api/session/1"))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.id").value(1L));
     }
 
+    /**
+     * Find by ID, where the client already holds the current version of the session
+     *
+     * @throws Exception if any error occurs during the test
+     */
+    @Test
+    void testFindByIdNotModified() throws Exception {
+        when(sessionService.getById(1L)).thenReturn(session);
+        String eTag = mockMvc.perform(get("/api/session/1")).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        clearInvocations(sessionService, sessionMapper);
+
+        mockMvc.perform(get("/api/session/1").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified());
+
+        verify(sessionService, never()).findParticipantIds(anyList());
+        verifyNoInteractions(sessionMapper);
+    }
+
     /**
      * Find by ID, where a valid session is not found.
      *
@@ -128,14 +167,124 @@ public class SessionControllerTest {
      */
     @Test
     void testFindAll() throws Exception {
+        Map<Long, List<Long>> participants = Map.of(1L, List.of(1L));
+        when(sessionService.findAllVersion()).thenReturn(ResourceVersion.of(session.getUpdatedAt(), 1L, 1L));
         when(sessionService.findAll()).thenReturn(List.of(session));
-        when(sessionMapper.toDto(List.of(session))).thenReturn(List.of(sessionDto));
+        when(sessionService.findParticipantIds()).thenReturn(participants);
+        when(sessionMapper.toDto(List.of(session), participants)).thenReturn(List.of(sessionDto));
 
         mockMvc.perform(get("/api/session"))
                 .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, ResourceVersion.of(session.getUpdatedAt(), 1L, 1L).getETag()))
                 .andExpect(jsonPath("$[0].id").value(1L));
     }
 
+    /**
+     * Find all, where the client already holds the current version of the list
+     *
+     * @throws Exception if any error occurs during the test
+     */
+    @Test
+    void testFindAllNotModified() throws Exception {
+        ResourceVersion version = ResourceVersion.of(session.getUpdatedAt(), 1L, 1L);
+        when(sessionService.findAllVersion()).thenReturn(version);
+
+        mockMvc.perform(get("/api/session").header(HttpHeaders.IF_NONE_MATCH, version.getETag()))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        verify(sessionService, never()).findAll();
+        verify(sessionMapper, never()).toDto(anyList(), anyMap());
+    }
+
+    /**
+     * Find page, where more sessions are available after the returned one
+     *
+     * @throws Exception if any error occurs during the test
+     */
+    @Test
+    void testFindPageWithNextCursor() throws Exception {
+        when(sessionService.findPage(isNull(), isNull(), isNull(), isNull(), eq(1)))
+                .thenReturn(new SliceImpl<>(List.of(session), PageRequest.of(0, 1), true));
+        when(sessionService.findParticipantIds(List.of(1L))).thenReturn(Map.of());
+        when(sessionMapper.toDto(List.of(session), Map.of())).thenReturn(List.of(sessionDto));
+
+        String expectedCursor = new SessionCursor(session.getDate(), session.getId()).encode();
+
+        mockMvc.perform(get("/api/session/page").param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.sessions[0].id").value(1L))
+                .andExpect(jsonPath("$.nextCursor").value(expectedCursor));
+    }
+
+    /**
+     * Find page, where the cursor is decoded and the last page has no next cursor
+     *
+     * @throws Exception if any error occurs during the test
+     */
+    @Test
+    void testFindPageLastPage() throws Exception {
+        SessionCursor cursor = new SessionCursor(new Date(1700000000000L), 1L);
+        when(sessionService.findPage(eq(2L), isNull(), isNull(), eq(cursor), eq(20)))
+                .thenReturn(new SliceImpl<>(List.of(session), PageRequest.of(0, 20), false));
+        when(sessionService.findParticipantIds(List.of(1L))).thenReturn(Map.of());
+        when(sessionMapper.toDto(List.of(session), Map.of())).thenReturn(List.of(sessionDto));
+
+        mockMvc.perform(get("/api/session/page")
+                        .param("cursor", cursor.encode())
+                        .param("teacherId", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.sessions[0].id").value(1L))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
+    /**
+     * Find page, where a request is sent with a cursor that cannot be decoded
+     * The expected status code is 400 (Bad Request)
+     */
+    @Test
+    void testFindPageBadCursor() throws Exception {
+        mockMvc.perform(get("/api/session/page").param("cursor", "not-a-cursor"))
+                .andExpect(status().isBadRequest());
+
+        verify(sessionService, never()).findPage(any(), any(), any(), any(), anyInt());
+    }
+
+    /**
+     * Stream, where every page of sessions is written as newline-delimited JSON in order
+     *
+     * @throws Exception if any error occurs during the test
+     */
+    @Test
+    void testStream() throws Exception {
+        Session nextSession = new Session();
+        nextSession.setId(2L);
+        SessionDto nextSessionDto = new SessionDto();
+        nextSessionDto.setId(2L);
+        Map<Long, List<Long>> participants = Map.of(1L, List.of(1L));
+        when(sessionMapper.toDto(session, participants)).thenReturn(sessionDto);
+        when(sessionMapper.toDto(nextSession, participants)).thenReturn(nextSessionDto);
+        doAnswer(invocation -> {
+            SessionService.PageConsumer consumer = invocation.getArgument(3);
+            consumer.accept(List.of(session), participants);
+            consumer.accept(List.of(nextSession), participants);
+            return null;
+        }).when(sessionService).forEachPage(eq(2L), isNull(), isNull(), any());
+
+        MvcResult result = mockMvc.perform(get("/api/session/stream").param("teacherId", "2"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = body.split("\n");
+        assertEquals(2, lines.length);
+        assertEquals(1L, objectMapper.readTree(lines[0]).get("id").asLong());
+        assertEquals(2L, objectMapper.readTree(lines[1]).get("id").asLong());
+    }
+
     /**
      * Create method
      *
@@ -222,6 +371,44 @@ public class SessionControllerTest {
                 .andExpect(status().isBadRequest());
     }
 
+    /**
+     * Bulk create, where every session of the JSON array is created
+     *
+     * @throws Exception if any error occurs during the test
+     */
+    @Test
+    void testCreateAllSuccess() throws Exception {
+        when(sessionImportService.importSessions(List.of(sessionDto)))
+                .thenReturn(new SessionImportResult(1, List.of(1L), List.of()));
+
+        mockMvc.perform(post("/api/session/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(sessionDto))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(1))
+                .andExpect(jsonPath("$.ids[0]").value(1L));
+    }
+
+    /**
+     * Bulk create from CSV, where invalid rows are reported with a 400 (Bad Request)
+     *
+     * @throws Exception if any error occurs during the test
+     */
+    @Test
+    void testImportCsvWithErrors() throws Exception {
+        String csv = "name,date,teacher_id,description\n,2024-01-15,1,No name\n";
+        when(sessionImportService.importCsv(csv)).thenReturn(new SessionImportResult(0, List.of(),
+                List.of(new SessionImportResult.RowError(1, List.of("name: must not be blank")))));
+
+        mockMvc.perform(post("/api/session/bulk")
+                        .contentType("text/csv")
+                        .content(csv))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.created").value(0))
+                .andExpect(jsonPath("$.errors[0].row").value(1))
+                .andExpect(jsonPath("$.errors[0].messages[0]").value("name: must not be blank"));
+    }
+
     /**
      * Participate method with a valid request
      * The expected status code is 200 (OK)
@@ -247,6 +434,57 @@ public class SessionControllerTest {
                 .andExpect(status().isBadRequest());
     }
 
+    /**
+     * Bulk participate, where the outcome of every user is returned
+     *
+     * @throws Exception if any error occurs during the test
+     */
+    @Test
+    void testParticipateAllSuccess() throws Exception {
+        when(sessionService.participateAll(1L, List.of(2L, 3L))).thenReturn(List.of(
+                new ParticipationResult(2L, ParticipationResult.Outcome.ENROLLED),
+                new ParticipationResult(3L, ParticipationResult.Outcome.SESSION_FULL)));
+
+        mockMvc.perform(post("/api/session/1/participate")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"userIds\":[2,3]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].userId").value(2L))
+                .andExpect(jsonPath("$[0].outcome").value("ENROLLED"))
+                .andExpect(jsonPath("$[1].outcome").value("SESSION_FULL"));
+    }
+
+    /**
+     * Bulk participate, where the list of users is empty
+     * The expected status code is 400 (Bad Request)
+     */
+    @Test
+    void testParticipateAllEmptyBadRequest() throws Exception {
+        mockMvc.perform(post("/api/session/1/participate")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"userIds\":[]}"))
+                .andExpect(status().isBadRequest());
+
+        verify(sessionService, never()).participateAll(any(), any());
+    }
+
+    /**
+     * Bulk no longer participate, where the outcome of every user is returned
+     *
+     * @throws Exception if any error occurs during the test
+     */
+    @Test
+    void testNoLongerParticipateAllSuccess() throws Exception {
+        when(sessionService.noLongerParticipateAll(1L, List.of(2L))).thenReturn(List.of(
+                new ParticipationResult(2L, ParticipationResult.Outcome.UNENROLLED)));
+
+        mockMvc.perform(delete("/api/session/1/participate")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"userIds\":[2]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].outcome").value("UNENROLLED"));
+    }
+
     /**
      * Tests the no longer participate method with a valid request
      * The expected status code is 200 (OK)
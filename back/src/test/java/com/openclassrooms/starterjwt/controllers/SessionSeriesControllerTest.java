@@ -0,0 +1,125 @@
+package com.openclassrooms.starterjwt.controllers;
+
+import com.openclassrooms.starterjwt.dto.SessionDto;
+import com.openclassrooms.starterjwt.dto.SessionSeriesDto;
+import com.openclassrooms.starterjwt.mapper.SessionSeriesMapper;
+import com.openclassrooms.starterjwt.models.SessionSeries;
+import com.openclassrooms.starterjwt.services.SessionSeriesService;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Unit tests for the SessionSeriesController class
+ */
+public class SessionSeriesControllerTest {
+
+    private MockMvc mockMvc;
+
+    private SessionSeriesService sessionSeriesService;
+    private SessionSeriesMapper sessionSeriesMapper;
+
+    /**
+     * Initializes the series service and mapper mock objects before each test
+     */
+    @BeforeEach
+    void setUp() {
+        sessionSeriesService = mock(SessionSeriesService.class);
+        sessionSeriesMapper = mock(SessionSeriesMapper.class);
+
+        SessionSeriesController sessionSeriesController = new SessionSeriesController(sessionSeriesService, sessionSeriesMapper);
+        mockMvc = MockMvcBuilders.standaloneSetup(sessionSeriesController).build();
+    }
+
+    /**
+     * Tests that a valid series is created and returned
+     *
+     * @throws Exception if any error occurs during testing
+     */
+    @Test
+    public void testCreate() throws Exception {
+        SessionSeries series = new SessionSeries().setId(1L);
+        SessionSeriesDto seriesDto = new SessionSeriesDto();
+        seriesDto.setId(1L);
+        seriesDto.setDays(Set.of(DayOfWeek.MONDAY));
+        when(sessionSeriesMapper.toEntity(any(SessionSeriesDto.class))).thenReturn(series);
+        when(sessionSeriesService.create(series)).thenReturn(series);
+        when(sessionSeriesMapper.toDto(series)).thenReturn(seriesDto);
+
+        mockMvc.perform(post("/api/series")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Morning flow\",\"teacher_id\":1,\"description\":\"Weekly class\","
+                                + "\"start\":\"2030-01-07T10:00:00.000+00:00\",\"days\":[\"MONDAY\"],\"count\":10}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(1))
+                .andExpect(jsonPath("$.days[0]").value("MONDAY"));
+    }
+
+    /**
+     * Tests that a series without days is rejected before reaching the service
+     *
+     * @throws Exception if any error occurs during testing
+     */
+    @Test
+    public void testCreateWithoutDays() throws Exception {
+        mockMvc.perform(post("/api/series")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"Morning flow\",\"teacher_id\":1,\"description\":\"Weekly class\","
+                                + "\"start\":\"2030-01-07T10:00:00.000+00:00\",\"days\":[]}"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(sessionSeriesService);
+    }
+
+    /**
+     * Tests that the occurrences of a range are returned as the service merged them
+     *
+     * @throws Exception if any error occurs during testing
+     */
+    @Test
+    public void testFindOccurrences() throws Exception {
+        SessionDto virtual = new SessionDto();
+        virtual.setName("Morning flow");
+        virtual.setSeries_id(1L);
+        Date from = Date.from(Instant.parse("2030-01-01T00:00:00Z"));
+        Date to = Date.from(Instant.parse("2030-02-01T00:00:00Z"));
+        when(sessionSeriesService.findOccurrences(2L, from, to)).thenReturn(List.of(virtual));
+
+        mockMvc.perform(get("/api/series/occurrences")
+                        .param("from", "2030-01-01T00:00:00.000Z")
+                        .param("to", "2030-02-01T00:00:00.000Z")
+                        .param("teacherId", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").doesNotExist())
+                .andExpect(jsonPath("$[0].series_id").value(1));
+    }
+
+    /**
+     * Tests that an unknown series is answered with 404
+     *
+     * @throws Exception if any error occurs during testing
+     */
+    @Test
+    public void testFindByIdNotFound() throws Exception {
+        when(sessionSeriesService.getById(1L)).thenReturn(null);
+
+        mockMvc.perform(get("/api/series/1")).andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/series/bad")).andExpect(status().isBadRequest());
+    }
+}
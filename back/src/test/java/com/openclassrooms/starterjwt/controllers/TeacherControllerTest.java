@@ -9,6 +9,7 @@ import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
@@ -40,7 +41,7 @@ public class TeacherControllerTest {
     static void beforeAll() {
         LocalDateTime now = LocalDateTime.now();
 
-        teacherMock = new Teacher(1L, "Teacher", "Test", now, now);
+        teacherMock = new Teacher(1L, "Teacher", "Test", now, now, 0L);
 
         teacherDtoMock = new TeacherDto();
         teacherDtoMock.setId(1L);
@@ -119,4 +120,58 @@ public class TeacherControllerTest {
                 .andExpect(jsonPath("$[0].firstName").value("Test"))
                 .andExpect(jsonPath("$[0].lastName").value("Teacher"));
     }
+
+    /**
+     * Tests that a teacher the client already holds is answered with 304 and is not mapped
+     *
+     * @throws Exception if any error occurs during testing
+     */
+    @Test
+    public void testFindTeacherByIdNotModified() throws Exception {
+        when(teacherService.findById(1L)).thenReturn(teacherMock);
+        String eTag = mockMvc.perform(get("/api/teacher/1")).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        clearInvocations(teacherMapper);
+
+        mockMvc.perform(get("/api/teacher/1").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified());
+
+        verifyNoInteractions(teacherMapper);
+    }
+
+    /**
+     * Tests that two updates within the second of the last one, leaving the last update unchanged, change the ETags
+     * of the teacher and of the teacher list
+     *
+     * @throws Exception if any error occurs during testing
+     */
+    @Test
+    public void testFindTeacherModifiedWithinASecond() throws Exception {
+        Teacher updated = new Teacher(1L, "Renamed", "Test", teacherMock.getCreatedAt(), teacherMock.getUpdatedAt(), 2L);
+        when(teacherService.findById(1L)).thenReturn(teacherMock, updated);
+        when(teacherService.findAll()).thenReturn(List.of(teacherMock), List.of(updated));
+        String eTag = mockMvc.perform(get("/api/teacher/1")).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        String listETag = mockMvc.perform(get("/api/teacher")).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/api/teacher/1").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/teacher").header(HttpHeaders.IF_NONE_MATCH, listETag))
+                .andExpect(status().isOk());
+    }
+
+    /**
+     * Tests that the teacher list is revalidated with its Last-Modified date
+     *
+     * @throws Exception if any error occurs during testing
+     */
+    @Test
+    public void testFindAllTeachersNotModifiedSince() throws Exception {
+        when(teacherService.findAll()).thenReturn(List.of(teacherMock));
+        String lastModified = mockMvc.perform(get("/api/teacher")).andReturn().getResponse().getHeader(HttpHeaders.LAST_MODIFIED);
+        clearInvocations(teacherMapper);
+
+        mockMvc.perform(get("/api/teacher").header(HttpHeaders.IF_MODIFIED_SINCE, lastModified))
+                .andExpect(status().isNotModified());
+
+        verify(teacherMapper, never()).toDto(anyList());
+    }
 }
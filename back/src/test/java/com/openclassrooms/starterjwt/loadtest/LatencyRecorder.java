@@ -0,0 +1,71 @@
+package com.openclassrooms.starterjwt.loadtest;
+
+import java.io.PrintStream;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Collects the latency of every request per endpoint and prints p50/p99 latency and throughput.
+ */
+class LatencyRecorder {
+
+    private final Map<String, Samples> samples = new ConcurrentHashMap<>();
+
+    void record(String endpoint, long nanos, boolean success) {
+        samples.computeIfAbsent(endpoint, key -> new Samples()).add(nanos, success);
+    }
+
+    void report(Duration measured, PrintStream out) {
+        double seconds = measured.toNanos() / 1e9;
+        out.printf("%n%-50s %8s %7s %10s %10s %10s %10s%n",
+                "Endpoint", "Requests", "Errors", "Req/s", "p50 (ms)", "p99 (ms)", "Max (ms)");
+        new TreeMap<>(samples).forEach((endpoint, endpointSamples) -> {
+            long[] sorted = endpointSamples.sorted();
+            out.printf("%-50s %8d %7d %10.1f %10.2f %10.2f %10.2f%n",
+                    endpoint,
+                    sorted.length,
+                    endpointSamples.errors(),
+                    sorted.length / seconds,
+                    percentile(sorted, 0.50) / 1e6,
+                    percentile(sorted, 0.99) / 1e6,
+                    sorted.length > 0 ? sorted[sorted.length - 1] / 1e6 : 0);
+        });
+    }
+
+    private static long percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, index)];
+    }
+
+    private static class Samples {
+        private long[] nanos = new long[1024];
+        private int size;
+        private int errors;
+
+        synchronized void add(long value, boolean success) {
+            if (size == nanos.length) {
+                nanos = Arrays.copyOf(nanos, size * 2);
+            }
+            nanos[size++] = value;
+            if (!success) {
+                errors++;
+            }
+        }
+
+        synchronized long[] sorted() {
+            long[] copy = Arrays.copyOf(nanos, size);
+            Arrays.sort(copy);
+            return copy;
+        }
+
+        synchronized int errors() {
+            return errors;
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package com.openclassrooms.starterjwt.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openclassrooms.starterjwt.SpringBootSecurityJwtApplication;
+
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Boots the application on the in-memory database of the {@code loadtest} profile, seeds it and runs a scripted
+ * workload over HTTP: each worker logs in as its own user, then lists sessions, looks up teachers and joins then
+ * leaves sessions, logging in again every {@code requestsPerLogin} requests. Prints p50/p99 latency and throughput
+ * per endpoint. The {@code sessions} workload only lists sessions, and {@code oc.loadtest.dbLatency} delays every
+ * statement to make that listing I/O-bound.
+ *
+ * mvn -Ploadtest test -DskipTests [-Dloadtest.args="--oc.loadtest.threads=32 --oc.loadtest.sessions=1000"]
+ */
+public class LoadTest {
+
+    private static final String PASSWORD = "load-password";
+
+    private final Settings settings;
+    private final String baseUrl;
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final LatencyRecorder recorder = new LatencyRecorder();
+
+    private List<Long> userIds;
+    private List<Long> teacherIds;
+    private List<Long> sessionIds;
+
+    private volatile long measureFrom;
+    private volatile long measureTo;
+
+    private LoadTest(Settings settings, String baseUrl) {
+        this.settings = settings;
+        this.baseUrl = baseUrl;
+    }
+
+    public static void main(String[] args) throws Exception {
+        run(args).report(System.out);
+    }
+
+    /**
+     * Boots the application with the given arguments, runs the workload and returns the latencies of the measured
+     * period
+     */
+    static Report run(String... args) throws Exception {
+        String[] arguments = new String[args.length + 2];
+        arguments[0] = "--server.port=0";
+        arguments[1] = "--management.server.port=0";
+        System.arraycopy(args, 0, arguments, 2, args.length);
+
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(SpringBootSecurityJwtApplication.class)
+                .profiles("loadtest")
+                .initializers(applicationContext -> applicationContext.getBeanFactory().addBeanPostProcessor(
+                        simulatedLatency(applicationContext.getEnvironment().getRequiredProperty("oc.loadtest.dbLatency", Duration.class))))
+                .run(arguments);
+        try {
+            Settings settings = Settings.from(context.getEnvironment());
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+
+            LoadTest loadTest = new LoadTest(settings, "http://localhost:" + port);
+            loadTest.seed(new LoadTestSeeder(context.getBean(JdbcTemplate.class)), context.getBean(PasswordEncoder.class));
+            loadTest.run();
+            return new Report(loadTest.recorder, settings.duration);
+        } finally {
+            context.close();
+        }
+    }
+
+    private static BeanPostProcessor simulatedLatency(Duration latency) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+                if (bean instanceof DataSource dataSource && !latency.isZero()) {
+                    return new SimulatedLatencyDataSource(dataSource, latency);
+                }
+                return bean;
+            }
+        };
+    }
+
+    private void seed(LoadTestSeeder seeder, PasswordEncoder passwordEncoder) {
+        long start = System.nanoTime();
+        userIds = seeder.seedUsers(settings.users, passwordEncoder.encode(PASSWORD));
+        teacherIds = seeder.seedTeachers(settings.teachers);
+        sessionIds = seeder.seedSessions(settings.sessions, teacherIds);
+        seeder.seedParticipations(sessionIds, userIds, settings.threads, settings.participationsPerSession);
+
+        System.out.printf("Seeded %d users, %d teachers, %d sessions, %d participations per session in %d ms%n",
+                userIds.size(), teacherIds.size(), sessionIds.size(), settings.participationsPerSession,
+                Duration.ofNanos(System.nanoTime() - start).toMillis());
+    }
+
+    private void run() throws Exception {
+        if (settings.threads > userIds.size()) {
+            throw new IllegalStateException("oc.loadtest.users must be at least oc.loadtest.threads");
+        }
+
+        long start = System.nanoTime();
+        measureFrom = start + settings.warmup.toNanos();
+        measureTo = measureFrom + settings.duration.toNanos();
+        System.out.printf("Running %d workers on the %s workload: %s warm-up, %s measured%n",
+                settings.threads, settings.workload, settings.warmup, settings.duration);
+
+        // Virtual threads, so that hundreds of blocked workers do not make the client the bottleneck
+        ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor();
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < settings.threads; i++) {
+                int worker = i;
+                futures.add(workers.submit(() -> {
+                    work(worker);
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    private void work(int worker) throws IOException, InterruptedException {
+        long userId = userIds.get(worker);
+        String email = LoadTestSeeder.EMAIL_PREFIX + worker + LoadTestSeeder.EMAIL_DOMAIN;
+        String token = null;
+        int requests = 0;
+
+        while (System.nanoTime() < measureTo) {
+            if (token == null || requests % settings.requestsPerLogin == 0) {
+                token = login(email);
+                if (token == null) {
+                    continue;
+                }
+            }
+            requests++;
+
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            int operation = settings.workload == Workload.SESSIONS ? 0 : random.nextInt(10);
+            if (operation < 4) {
+                send("GET /api/session", get("/api/session", token));
+            } else if (operation < 7) {
+                long teacherId = teacherIds.get(random.nextInt(teacherIds.size()));
+                send("GET /api/teacher/{id}", get("/api/teacher/" + teacherId, token));
+            } else {
+                long sessionId = sessionIds.get(random.nextInt(sessionIds.size()));
+                String path = "/api/session/" + sessionId + "/participate/" + userId;
+                send("POST /api/session/{id}/participate/{userId}", authorized(path, token)
+                        .POST(HttpRequest.BodyPublishers.noBody()).build());
+                send("DELETE /api/session/{id}/participate/{userId}", authorized(path, token)
+                        .DELETE().build());
+            }
+        }
+    }
+
+    /**
+     * Logs in, backing off and retrying while the password encoder rejects the attempt as overloaded
+     */
+    private String login(String email) throws IOException, InterruptedException {
+        String body = objectMapper.writeValueAsString(new Credentials(email, PASSWORD));
+        HttpResponse<String> response = send("POST /api/auth/login", loginRequest(body));
+        while (response.statusCode() == 503 && System.nanoTime() < measureTo) {
+            Thread.sleep(ThreadLocalRandom.current().nextInt(10, 100));
+            response = send("POST /api/auth/login", loginRequest(body));
+        }
+        if (response.statusCode() != 200) {
+            return null;
+        }
+        return objectMapper.readTree(response.body()).get("token").asText();
+    }
+
+    private HttpRequest loginRequest(String body) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + "/api/auth/login"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private HttpRequest get(String path, String token) {
+        return authorized(path, token).GET().build();
+    }
+
+    private HttpRequest.Builder authorized(String path, String token) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).header("Authorization", "Bearer " + token);
+    }
+
+    private HttpResponse<String> send(String endpoint, HttpRequest request) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        long end = System.nanoTime();
+
+        if (start >= measureFrom && end <= measureTo) {
+            recorder.record(endpoint, end - start, response.statusCode() < 400);
+        }
+        return response;
+    }
+
+    private record Credentials(String email, String password) {
+    }
+
+    record Report(LatencyRecorder recorder, Duration measured) {
+
+        void report(PrintStream out) {
+            recorder.report(measured, out);
+        }
+    }
+
+    private enum Workload {
+        MIXED, SESSIONS
+    }
+
+    private record Settings(int users, int teachers, int sessions, int participationsPerSession, int threads,
+                            Duration warmup, Duration duration, int requestsPerLogin, Workload workload) {
+
+        static Settings from(Environment environment) {
+            return new Settings(
+                    environment.getRequiredProperty("oc.loadtest.users", Integer.class),
+                    environment.getRequiredProperty("oc.loadtest.teachers", Integer.class),
+                    environment.getRequiredProperty("oc.loadtest.sessions", Integer.class),
+                    environment.getRequiredProperty("oc.loadtest.participationsPerSession", Integer.class),
+                    environment.getRequiredProperty("oc.loadtest.threads", Integer.class),
+                    environment.getRequiredProperty("oc.loadtest.warmup", Duration.class),
+                    environment.getRequiredProperty("oc.loadtest.duration", Duration.class),
+                    environment.getRequiredProperty("oc.loadtest.requestsPerLogin", Integer.class),
+                    Workload.valueOf(environment.getRequiredProperty("oc.loadtest.workload").toUpperCase()));
+        }
+    }
+}
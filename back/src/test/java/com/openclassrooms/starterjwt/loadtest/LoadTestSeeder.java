@@ -0,0 +1,99 @@
+package com.openclassrooms.starterjwt.loadtest;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fills the load-test database with batched inserts. Every seeded user has the same password.
+ * The first {@code workers} users are kept out of the seeded participations, so the workload can make them join
+ * and leave any session.
+ */
+class LoadTestSeeder {
+
+    static final String EMAIL_PREFIX = "load-";
+    static final String EMAIL_DOMAIN = "@yoga.fr";
+
+    private static final int BATCH_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    LoadTestSeeder(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Inserts the users and returns their ids in insertion order
+     */
+    List<Long> seedUsers(int count, String encodedPassword) {
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            rows.add(new Object[]{"Load", "User" + i, EMAIL_PREFIX + i + EMAIL_DOMAIN, encodedPassword});
+        }
+        batch("INSERT INTO USERS (first_name, last_name, admin, email, password) VALUES (?, ?, false, ?, ?)", rows);
+
+        return jdbcTemplate.queryForList(
+                "SELECT id FROM USERS WHERE email LIKE ? ORDER BY id", Long.class, EMAIL_PREFIX + "%");
+    }
+
+    List<Long> seedTeachers(int count) {
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            rows.add(new Object[]{"Load", "Teacher" + i});
+        }
+        batch("INSERT INTO TEACHERS (first_name, last_name) VALUES (?, ?)", rows);
+
+        return jdbcTemplate.queryForList("SELECT id FROM TEACHERS ORDER BY id", Long.class);
+    }
+
+    /**
+     * Inserts the sessions, one a day from today, spread over the teachers, and moves the session id generator past
+     * them
+     */
+    List<Long> seedSessions(int count, List<Long> teacherIds) {
+        Instant today = Instant.now().truncatedTo(ChronoUnit.DAYS);
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            rows.add(new Object[]{
+                    "Load session " + i,
+                    "Seeded for the load test",
+                    Timestamp.from(today.plus(i, ChronoUnit.DAYS)),
+                    teacherIds.get(i % teacherIds.size())});
+        }
+        batch("INSERT INTO SESSIONS (name, description, date, teacher_id) VALUES (?, ?, ?, ?)", rows);
+        // The application allocates session ids from ID_GENERATORS, which must start past the AUTO_INCREMENT ids
+        jdbcTemplate.update("UPDATE ID_GENERATORS SET next_val = (SELECT MAX(id) + 1 FROM SESSIONS) WHERE sequence_name = 'sessions'");
+
+        return jdbcTemplate.queryForList(
+                "SELECT id FROM SESSIONS WHERE name LIKE 'Load session %' ORDER BY id", Long.class);
+    }
+
+    /**
+     * Adds {@code perSession} participants to every session, picked among the users past the first {@code workers}
+     */
+    void seedParticipations(List<Long> sessionIds, List<Long> userIds, int workers, int perSession) {
+        List<Long> candidates = userIds.subList(Math.min(workers, userIds.size()), userIds.size());
+        int participants = Math.min(perSession, candidates.size());
+
+        List<Object[]> rows = new ArrayList<>();
+        for (int s = 0; s < sessionIds.size(); s++) {
+            for (int p = 0; p < participants; p++) {
+                rows.add(new Object[]{sessionIds.get(s), candidates.get((s + p) % candidates.size())});
+            }
+        }
+        batch("INSERT INTO PARTICIPATE (session_id, user_id) VALUES (?, ?)", rows);
+
+        jdbcTemplate.update("UPDATE SESSIONS SET participant_count ="
+                + " (SELECT COUNT(*) FROM PARTICIPATE p WHERE p.session_id = SESSIONS.id)");
+    }
+
+    private void batch(String sql, List<Object[]> rows) {
+        for (int from = 0; from < rows.size(); from += BATCH_SIZE) {
+            jdbcTemplate.batchUpdate(sql, rows.subList(from, Math.min(from + BATCH_SIZE, rows.size())));
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.openclassrooms.starterjwt.loadtest;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+
+/**
+ * Delays every statement execution by a fixed duration while the connection is held, so the in-memory database
+ * behaves like a remote MySQL server and the workload becomes I/O-bound.
+ */
+class SimulatedLatencyDataSource extends DelegatingDataSource {
+
+    private final Duration latency;
+
+    SimulatedLatencyDataSource(DataSource targetDataSource, Duration latency) {
+        super(targetDataSource);
+        this.latency = latency;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return delayed(super.getConnection(), Connection.class);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return delayed(super.getConnection(username, password), Connection.class);
+    }
+
+    private <T> T delayed(T target, Class<T> type) {
+        return type.cast(Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            if (type != Connection.class && method.getName().startsWith("execute")) {
+                Thread.sleep(latency.toMillis(), latency.toNanosPart() % 1_000_000);
+            }
+            Object result = invoke(target, method, args);
+            if (result instanceof Statement statement && Statement.class.isAssignableFrom(method.getReturnType())) {
+                return delayed(statement, statementType(method.getReturnType()));
+            }
+            return result;
+        }));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Class<Statement> statementType(Class<?> returnType) {
+        return (Class<Statement>) returnType;
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.openclassrooms.starterjwt.loadtest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs the I/O-bound session listing workload once on the Tomcat platform thread pool and once on virtual threads,
+ * each on a fresh application and database, and prints both reports. The defaults below apply unless the arguments
+ * override them.
+ *
+ * mvn -Ploadtest test -DskipTests -Dloadtest.class=com.openclassrooms.starterjwt.loadtest.ThreadModeComparison
+ *     [-Dloadtest.args="--oc.loadtest.threads=800 --oc.loadtest.dbLatency=PT0.02S"]
+ */
+public class ThreadModeComparison {
+
+    private static final Map<String, String> DEFAULTS = Map.of(
+            "oc.loadtest.workload", "sessions",
+            "oc.loadtest.threads", "200",
+            "oc.loadtest.dbLatency", "PT0.02S",
+            "oc.loadtest.requestsPerLogin", "1000000",
+            "oc.app.password.strength", "4");
+
+    public static void main(String[] args) throws Exception {
+        LoadTest.Report platform = LoadTest.run(arguments(args, false));
+        LoadTest.Report virtual = LoadTest.run(arguments(args, true));
+
+        System.out.printf("%nPlatform threads%n");
+        platform.report(System.out);
+        System.out.printf("%nVirtual threads%n");
+        virtual.report(System.out);
+    }
+
+    private static String[] arguments(String[] args, boolean virtualThreads) {
+        List<String> arguments = new ArrayList<>(Arrays.asList(args));
+        DEFAULTS.forEach((name, value) -> {
+            if (arguments.stream().noneMatch(argument -> argument.startsWith("--" + name + "="))) {
+                arguments.add("--" + name + "=" + value);
+            }
+        });
+        arguments.add("--oc.app.virtualThreads=" + virtualThreads);
+        arguments.add("--oc.loadtest.database=yoga-" + (virtualThreads ? "virtual" : "platform"));
+        return arguments.toArray(String[]::new);
+    }
+}
@@ -0,0 +1,89 @@
+package com.openclassrooms.starterjwt.mapper;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.openclassrooms.starterjwt.dto.SessionDto;
+import com.openclassrooms.starterjwt.dto.SessionImportResult;
+import com.openclassrooms.starterjwt.exception.BadRequestException;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the SessionCsvMapper class
+ */
+class SessionCsvMapperTest {
+
+    private final SessionCsvMapper sessionCsvMapper = new SessionCsvMapper(new ObjectMapper());
+
+    private final List<SessionImportResult.RowError> errors = new ArrayList<>();
+
+    /**
+     * Tests that columns are matched by header name and that quoted fields may hold commas, quotes and line breaks
+     */
+    @Test
+    void testToDtosReadsQuotedFields() {
+        String csv = "teacher_id,Name,date,description,capacity\r\n"
+                + "1,Morning flow,2024-01-15T09:30:00Z,\"Slow, then \"\"fast\"\"\nflow\",12\r\n"
+                + "\r\n"
+                + "2,Evening,2024-01-16,Calm,\n";
+
+        List<SessionDto> sessions = sessionCsvMapper.toDtos(csv, errors);
+
+        assertTrue(errors.isEmpty());
+        assertEquals(2, sessions.size());
+        SessionDto first = sessions.get(0);
+        assertEquals("Morning flow", first.getName());
+        assertEquals(new Date(1705311000000L), first.getDate());
+        assertEquals(1L, first.getTeacher_id());
+        assertEquals("Slow, then \"fast\"\nflow", first.getDescription());
+        assertEquals(12, first.getCapacity());
+        assertNull(sessions.get(1).getCapacity());
+    }
+
+    /**
+     * Tests that a row with a wrong number of fields or an unreadable value becomes an error, and the others are kept
+     */
+    @Test
+    void testToDtosReportsUnreadableRows() {
+        String csv = "name,date,teacher_id,description\n"
+                + "Yoga,2024-01-15,1,Fine\n"
+                + "Yoga,2024-01-15,1\n"
+                + "Yoga,not a date,1,Bad date\n";
+
+        List<SessionDto> sessions = sessionCsvMapper.toDtos(csv, errors);
+
+        assertEquals(3, sessions.size());
+        assertNotNull(sessions.get(0));
+        assertNull(sessions.get(1));
+        assertNull(sessions.get(2));
+        assertEquals(List.of(
+                new SessionImportResult.RowError(2, List.of("expected 4 fields, found 3")),
+                new SessionImportResult.RowError(3, List.of("date: invalid value 'not a date'"))), errors);
+    }
+
+    /**
+     * Tests that a header without one of the required columns rejects the whole file before any row is read
+     */
+    @Test
+    void testToDtosRejectsMissingColumn() {
+        assertThrows(BadRequestException.class, () -> sessionCsvMapper.toDtos("name,date,description\nYoga,2024-01-15,Fine\n", errors));
+        assertThrows(BadRequestException.class, () -> sessionCsvMapper.toDtos("name,teacher_id,description,capacity\nYoga,1,Fine,12\n", errors));
+        assertTrue(errors.isEmpty());
+    }
+
+    /**
+     * Tests that an unknown or repeated column, or an unterminated quote, rejects the whole file
+     */
+    @Test
+    void testToDtosRejectsMalformedFile() {
+        assertThrows(BadRequestException.class, () -> sessionCsvMapper.toDtos("name,users\nYoga,1\n", errors));
+        assertThrows(BadRequestException.class, () -> sessionCsvMapper.toDtos("name,name\nYoga,Yoga\n", errors));
+        assertThrows(BadRequestException.class, () -> sessionCsvMapper.toDtos("name\n\"Yoga\n", errors));
+        assertThrows(BadRequestException.class, () -> sessionCsvMapper.toDtos("", errors));
+    }
+}
@@ -0,0 +1,167 @@
+package com.openclassrooms.starterjwt.mapper;
+
+import com.openclassrooms.starterjwt.config.CacheConfig;
+import com.openclassrooms.starterjwt.dto.SessionDto;
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.Teacher;
+import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+import com.openclassrooms.starterjwt.repository.TeacherRepository;
+import com.openclassrooms.starterjwt.repository.UserRepository;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceContext;
+import javax.persistence.PersistenceUnitUtil;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration tests for the SessionMapper class
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+@Transactional
+class SessionMapperTest {
+
+    @Autowired
+    private SessionMapper sessionMapper;
+
+    @Autowired
+    private SessionRepository sessionRepository;
+
+    @Autowired
+    private TeacherRepository teacherRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private Teacher teacher;
+    private List<Long> userIds;
+
+    /**
+     * Cleans the tables and creates one teacher and 200 users
+     */
+    @BeforeEach
+    void setUp() {
+        entityManager.createNativeQuery("SET FOREIGN_KEY_CHECKS = 0").executeUpdate();
+        entityManager.createNativeQuery("DELETE FROM participate").executeUpdate();
+        entityManager.createNativeQuery("DELETE FROM sessions").executeUpdate();
+        entityManager.createNativeQuery("DELETE FROM users").executeUpdate();
+        entityManager.createNativeQuery("DELETE FROM teachers").executeUpdate();
+        entityManager.createNativeQuery("SET FOREIGN_KEY_CHECKS = 1").executeUpdate();
+
+        teacher = new Teacher();
+        teacher.setFirstName("Test");
+        teacher.setLastName("Teacher");
+        teacher = teacherRepository.save(teacher);
+
+        userIds = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            User user = new User("user" + i + "@yoga.fr", "User", "Test", "password", false);
+            userIds.add(userRepository.save(user).getId());
+        }
+
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    /**
+     * Tests that toEntity resolves the teacher and every participant
+     */
+    @Test
+    void testToEntityResolvesTeacherAndUsers() {
+        Session session = sessionMapper.toEntity(sessionDtoWithUsers(userIds.subList(0, 3)));
+
+        assertEquals(teacher.getId(), session.getTeacher().getId());
+        assertEquals(3, session.getUsers().size());
+        assertTrue(session.getUsers().stream().map(User::getId).allMatch(userIds::contains));
+    }
+
+    /**
+     * Tests that toEntity ignores participant ids that do not match any user
+     */
+    @Test
+    void testToEntityIgnoresUnknownUsers() {
+        Session session = sessionMapper.toEntity(sessionDtoWithUsers(List.of(userIds.get(0), 999999L)));
+
+        assertEquals(1, session.getUsers().size());
+    }
+
+    /**
+     * Tests that toEntity issues the same number of queries for one participant and for 200 participants
+     */
+    @Test
+    void testToEntityQueryCountDoesNotGrowWithParticipants() {
+        long singleParticipantQueries = countQueries(sessionDtoWithUsers(userIds.subList(0, 1)));
+        long manyParticipantsQueries = countQueries(sessionDtoWithUsers(userIds));
+
+        assertEquals(2, singleParticipantQueries);
+        assertEquals(singleParticipantQueries, manyParticipantsQueries);
+    }
+
+    /**
+     * Tests that toDto with pre-loaded participant ids does not initialize the lazy users collection
+     */
+    @Test
+    void testToDtoWithParticipantsDoesNotLoadUsers() {
+        Session saved = sessionRepository.save(sessionMapper.toEntity(sessionDtoWithUsers(userIds.subList(0, 2))));
+        entityManager.flush();
+        entityManager.clear();
+
+        Session session = sessionRepository.findById(saved.getId()).orElseThrow();
+        SessionDto sessionDto = sessionMapper.toDto(session, Map.of(session.getId(), userIds.subList(0, 2)));
+
+        PersistenceUnitUtil persistenceUnitUtil = entityManagerFactory.getPersistenceUnitUtil();
+        assertFalse(persistenceUnitUtil.isLoaded(session, "users"));
+        assertEquals(userIds.subList(0, 2), sessionDto.getUsers());
+        assertEquals(teacher.getId(), sessionDto.getTeacher_id());
+    }
+
+    private long countQueries(SessionDto sessionDto) {
+        entityManager.clear();
+        cacheManager.getCache(CacheConfig.TEACHERS).clear();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        sessionMapper.toEntity(sessionDto);
+
+        return statistics.getPrepareStatementCount();
+    }
+
+    private SessionDto sessionDtoWithUsers(List<Long> users) {
+        SessionDto sessionDto = new SessionDto();
+        sessionDto.setName("Session");
+        sessionDto.setDescription("Description");
+        sessionDto.setDate(new Date());
+        sessionDto.setTeacher_id(teacher.getId());
+        sessionDto.setUsers(users);
+        return sessionDto;
+    }
+}
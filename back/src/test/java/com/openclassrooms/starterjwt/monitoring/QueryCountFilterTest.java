@@ -0,0 +1,81 @@
+package com.openclassrooms.starterjwt.monitoring;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the QueryCountFilter class
+ */
+public class QueryCountFilterTest {
+
+    private final QueryCountInspector inspector = new QueryCountInspector();
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private MockHttpServletRequest request;
+
+    @BeforeEach
+    public void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        request = new MockHttpServletRequest("GET", "/api/session/1");
+    }
+
+    /**
+     * Tests that the statements of the request are counted and recorded under the matched URI
+     */
+    @Test
+    public void testCountsStatementsOfRequest() throws ServletException, IOException {
+        QueryCountFilter filter = new QueryCountFilter(meterRegistry, 10, true);
+
+        filter.doFilter(request, new MockHttpServletResponse(), statements(3));
+
+        assertEquals(3, request.getAttribute(QueryCountFilter.QUERY_COUNT_ATTRIBUTE));
+        assertEquals(3, meterRegistry.get("http.server.requests.queries")
+                .tag("method", "GET").tag("uri", "/api/session/{id}").summary().totalAmount());
+        assertEquals("select 1", inspector.inspect("select 1"));
+    }
+
+    /**
+     * Tests that a request above the threshold only logs when the filter is not strict
+     */
+    @Test
+    public void testAboveThresholdLenient() throws ServletException, IOException {
+        QueryCountFilter filter = new QueryCountFilter(meterRegistry, 2, false);
+
+        filter.doFilter(request, new MockHttpServletResponse(), statements(3));
+
+        assertEquals(3, request.getAttribute(QueryCountFilter.QUERY_COUNT_ATTRIBUTE));
+    }
+
+    /**
+     * Tests that a request above the threshold fails when the filter is strict
+     */
+    @Test
+    public void testAboveThresholdStrict() {
+        QueryCountFilter filter = new QueryCountFilter(meterRegistry, 2, true);
+
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> filter.doFilter(request, new MockHttpServletResponse(), statements(3)));
+
+        assertEquals("GET /api/session/{id} issued 3 SQL statements, above the threshold of 2", exception.getMessage());
+    }
+
+    private FilterChain statements(int count) {
+        return (servletRequest, servletResponse) -> {
+            servletRequest.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/session/{id}");
+            for (int i = 0; i < count; i++) {
+                inspector.inspect("select 1");
+            }
+        };
+    }
+}
@@ -0,0 +1,106 @@
+package com.openclassrooms.starterjwt.security;
+
+import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.repository.UserRepository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Integration tests for the password encoding and the access rules configured in WebSecurityConfig
+ */
+@SpringBootTest(properties = "oc.app.password.strength=5")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Transactional
+class WebSecurityConfigTest {
+
+    private static final String EMAIL = "upgrade@yoga.fr";
+
+    private static final String PASSWORD = "password123!";
+
+    @Autowired
+    private AuthenticationManager authenticationManager;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @BeforeEach
+    void setUp() {
+        userRepository.findByEmail(EMAIL).ifPresent(userRepository::delete);
+    }
+
+    /**
+     * Tests that new passwords are encoded with the bcrypt id and the configured strength
+     */
+    @Test
+    void encodeUsesConfiguredStrength() {
+        String encoded = passwordEncoder.encode(PASSWORD);
+
+        assertTrue(encoded.startsWith("{bcrypt}$2a$05$"));
+        assertTrue(passwordEncoder.matches(PASSWORD, encoded));
+        assertFalse(passwordEncoder.upgradeEncoding(encoded));
+    }
+
+    /**
+     * Tests that a legacy hash still authenticates and is replaced by a hash of the configured strength
+     */
+    @Test
+    void loginUpgradesLegacyHash() {
+        String legacy = new BCryptPasswordEncoder(4).encode(PASSWORD);
+        userRepository.saveAndFlush(new User(EMAIL, "User", "Upgrade", legacy, false));
+
+        authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(EMAIL, PASSWORD));
+
+        String stored = userRepository.findByEmail(EMAIL).orElseThrow().getPassword();
+        assertTrue(stored.startsWith("{bcrypt}$2a$05$"));
+        assertTrue(passwordEncoder.matches(PASSWORD, stored));
+    }
+
+    /**
+     * Tests that a hash already at the configured strength is left untouched by a login
+     */
+    @Test
+    void loginKeepsCurrentHash() {
+        String current = passwordEncoder.encode(PASSWORD);
+        userRepository.saveAndFlush(new User(EMAIL, "User", "Upgrade", current, false));
+
+        authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(EMAIL, PASSWORD));
+
+        assertEquals(current, userRepository.findByEmail(EMAIL).orElseThrow().getPassword());
+    }
+
+    /**
+     * Tests that the scrape endpoint requires authentication outside the management port, even from a loopback client
+     * such as a reverse proxy on the same host
+     */
+    @Test
+    void prometheusRequiresAuthenticationOnTheApplicationPort() throws Exception {
+        mockMvc.perform(get("/actuator/prometheus").with(request -> {
+                    request.setRemoteAddr("127.0.0.1");
+                    return request;
+                }))
+                .andExpect(status().isUnauthorized());
+    }
+}
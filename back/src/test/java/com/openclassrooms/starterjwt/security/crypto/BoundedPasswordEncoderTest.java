@@ -0,0 +1,99 @@
+package com.openclassrooms.starterjwt.security.crypto;
+
+import com.openclassrooms.starterjwt.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for the BoundedPasswordEncoder class
+ */
+public class BoundedPasswordEncoderTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private BoundedPasswordEncoder passwordEncoder;
+
+    @Mock
+    private PasswordEncoder delegate;
+
+    /**
+     * Set up an encoder with a single thread and room for a single waiting call
+     */
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        meterRegistry = new SimpleMeterRegistry();
+        passwordEncoder = new BoundedPasswordEncoder(delegate, 1, 1, meterRegistry);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        passwordEncoder.destroy();
+    }
+
+    /**
+     * Tests that encode and matches are delegated and timed
+     */
+    @Test
+    public void testDelegatesAndRecordsLatency() {
+        when(delegate.encode("password123!")).thenReturn("encoded");
+        when(delegate.matches("password123!", "encoded")).thenReturn(true);
+
+        assertEquals("encoded", passwordEncoder.encode("password123!"));
+        assertTrue(passwordEncoder.matches("password123!", "encoded"));
+
+        assertEquals(1, meterRegistry.get("password.hash").tag("operation", "encode").timer().count());
+        assertEquals(1, meterRegistry.get("password.hash").tag("operation", "matches").timer().count());
+    }
+
+    /**
+     * Tests that an exception of the delegate reaches the caller unchanged
+     */
+    @Test
+    public void testDelegateExceptionPropagates() {
+        when(delegate.encode(any())).thenThrow(new IllegalArgumentException("rawPassword cannot be null"));
+
+        assertThrows(IllegalArgumentException.class, () -> passwordEncoder.encode("password123!"));
+    }
+
+    /**
+     * Tests that a call is rejected with a 503 once the thread and the queue are taken
+     */
+    @Test
+    public void testRejectsWhenSaturated() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(delegate.encode(any())).thenAnswer(invocation -> {
+            started.countDown();
+            release.await();
+            return "encoded";
+        });
+
+        CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> passwordEncoder.encode("first"));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> passwordEncoder.encode("second"));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (meterRegistry.get("executor.queued").gauge().value() < 1 && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+
+        assertThrows(ServiceUnavailableException.class, () -> passwordEncoder.encode("third"));
+        assertEquals(1, meterRegistry.get("password.hash.rejected").counter().count());
+
+        release.countDown();
+        assertEquals("encoded", running.get(5, TimeUnit.SECONDS));
+        assertEquals("encoded", queued.get(5, TimeUnit.SECONDS));
+    }
+}
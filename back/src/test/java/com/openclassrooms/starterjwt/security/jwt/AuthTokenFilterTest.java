@@ -1,5 +1,7 @@
 package com.openclassrooms.starterjwt.security.jwt;
 
+import com.openclassrooms.starterjwt.config.CacheConfig;
+import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
 import com.openclassrooms.starterjwt.security.services.UserDetailsServiceImpl;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -8,6 +10,7 @@ import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
 import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -18,6 +21,7 @@ import javax.servlet.FilterChain;
 import javax.servlet.ServletException;
 
 import java.io.IOException;
+import java.time.Instant;
 import java.util.Collections;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -46,7 +50,7 @@ public class AuthTokenFilterTest {
     public void setUp() {
         MockitoAnnotations.openMocks(this);
         authTokenFilter = new AuthTokenFilter();
-        authTokenFilter.jwtUtils = jwtUtils;
+        authTokenFilter.verifiedTokens = new VerifiedTokenCache(jwtUtils, new ConcurrentMapCacheManager(CacheConfig.TOKENS));
         authTokenFilter.userDetailsService = userDetailsService;
 
         SecurityContextHolder.clearContext();
@@ -66,15 +70,16 @@ public class AuthTokenFilterTest {
 
         UserDetails userDetails = new User(username, "password123!", Collections.emptyList());
 
-        when(jwtUtils.validateJwtToken(token)).thenReturn(true);
-        when(jwtUtils.getUserNameFromJwtToken(token)).thenReturn(username);
-        when(userDetailsService.loadUserByUsername(username)).thenReturn(userDetails);
+        when(jwtUtils.parseJwtToken(token)).thenReturn(new JwtClaims(username, Instant.now().plusSeconds(60), 1L, false, "Test", "User"));
+        when(userDetailsService.loadPrincipalByUsername(username)).thenReturn(userDetails);
 
         authTokenFilter.doFilterInternal(request, response, filterChain);
 
         // Check that the user is authenticated
         assertNotNull(SecurityContextHolder.getContext().getAuthentication());
         assertEquals(username, SecurityContextHolder.getContext().getAuthentication().getName());
+        verify(jwtUtils, never()).validateJwtToken(anyString());
+        verify(jwtUtils, never()).getUserNameFromJwtToken(anyString());
 
         verify(filterChain, times(1)).doFilter(request, response);
     }
@@ -90,14 +95,14 @@ public class AuthTokenFilterTest {
         request.addHeader("Authorization", "Bearer " + token);
         MockHttpServletResponse response = new MockHttpServletResponse();
 
-        when(jwtUtils.validateJwtToken(token)).thenReturn(false);
+        when(jwtUtils.parseJwtToken(token)).thenReturn(null);
 
         authTokenFilter.doFilterInternal(request, response, filterChain);
 
         assertNull(SecurityContextHolder.getContext().getAuthentication());
 
-        verify(jwtUtils, times(1)).validateJwtToken(token);
-        verify(userDetailsService, never()).loadUserByUsername(anyString());
+        verify(jwtUtils, times(1)).parseJwtToken(token);
+        verify(userDetailsService, never()).loadPrincipalByUsername(anyString());
         verify(filterChain, times(1)).doFilter(request, response);
     }
 
@@ -126,13 +131,112 @@ public class AuthTokenFilterTest {
         request.addHeader("Authorization", "Bearer " + token);
         MockHttpServletResponse response = new MockHttpServletResponse();
 
-        when(jwtUtils.validateJwtToken(token)).thenThrow(new RuntimeException("JWT parsing error"));
+        when(jwtUtils.parseJwtToken(token)).thenThrow(new RuntimeException("JWT parsing error"));
 
         authTokenFilter.doFilterInternal(request, response, filterChain);
 
         assertNull(SecurityContextHolder.getContext().getAuthentication());
 
-        verify(userDetailsService, never()).loadUserByUsername(anyString());
+        verify(userDetailsService, never()).loadPrincipalByUsername(anyString());
         verify(filterChain, times(1)).doFilter(request, response);
     }
+
+    /**
+     * Tests that a token sent again is not verified a second time
+     */
+    @Test
+    public void testDoFilterInternal_repeatedTokenVerifiedOnce() throws ServletException, IOException {
+        String token = "valid.jwt.token";
+        String username = "Test";
+
+        UserDetails userDetails = new User(username, "password123!", Collections.emptyList());
+
+        when(jwtUtils.parseJwtToken(token)).thenReturn(new JwtClaims(username, Instant.now().plusSeconds(60), 1L, false, "Test", "User"));
+        when(userDetailsService.loadPrincipalByUsername(username)).thenReturn(userDetails);
+
+        for (int i = 0; i < 3; i++) {
+            SecurityContextHolder.clearContext();
+            MockHttpServletRequest request = new MockHttpServletRequest();
+            request.addHeader("Authorization", "Bearer " + token);
+
+            authTokenFilter.doFilterInternal(request, new MockHttpServletResponse(), filterChain);
+
+            assertEquals(username, SecurityContextHolder.getContext().getAuthentication().getName());
+        }
+
+        verify(jwtUtils, times(1)).parseJwtToken(token);
+    }
+
+    /**
+     * Tests that a rejected token is verified again on the next request
+     */
+    @Test
+    public void testDoFilterInternal_invalidTokenNotCached() throws ServletException, IOException {
+        String token = "invalid.token";
+
+        when(jwtUtils.parseJwtToken(token)).thenReturn(null);
+
+        for (int i = 0; i < 2; i++) {
+            MockHttpServletRequest request = new MockHttpServletRequest();
+            request.addHeader("Authorization", "Bearer " + token);
+
+            authTokenFilter.doFilterInternal(request, new MockHttpServletResponse(), filterChain);
+
+            assertNull(SecurityContextHolder.getContext().getAuthentication());
+        }
+
+        verify(jwtUtils, times(2)).parseJwtToken(token);
+    }
+
+    /**
+     * Tests that in stateless mode the principal is built from the token claims without loading the user
+     */
+    @Test
+    public void testDoFilterInternal_statelessPrincipal() throws ServletException, IOException {
+        String token = "valid.jwt.token";
+        authTokenFilter.stateless = true;
+
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Authorization", "Bearer " + token);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        when(jwtUtils.parseJwtToken(token)).thenReturn(new JwtClaims("test@test.com", Instant.now().plusSeconds(60), 7L, true, "Test", "User"));
+
+        authTokenFilter.doFilterInternal(request, response, filterChain);
+
+        UserDetailsImpl principal = (UserDetailsImpl) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        assertEquals(7L, principal.getId());
+        assertEquals("test@test.com", principal.getUsername());
+        assertEquals("Test", principal.getFirstName());
+        assertEquals("User", principal.getLastName());
+        assertTrue(principal.getAdmin());
+        assertNull(principal.getPassword());
+
+        verify(userDetailsService, never()).loadPrincipalByUsername(anyString());
+        verify(filterChain, times(1)).doFilter(request, response);
+    }
+
+    /**
+     * Tests that in stateless mode a token issued without the user claims still loads the user
+     */
+    @Test
+    public void testDoFilterInternal_statelessFallsBackWithoutClaims() throws ServletException, IOException {
+        String token = "legacy.jwt.token";
+        String username = "Test";
+        authTokenFilter.stateless = true;
+
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Authorization", "Bearer " + token);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        UserDetails userDetails = new User(username, "password123!", Collections.emptyList());
+
+        when(jwtUtils.parseJwtToken(token)).thenReturn(new JwtClaims(username, Instant.now().plusSeconds(60), null, null, null, null));
+        when(userDetailsService.loadPrincipalByUsername(username)).thenReturn(userDetails);
+
+        authTokenFilter.doFilterInternal(request, response, filterChain);
+
+        assertEquals(username, SecurityContextHolder.getContext().getAuthentication().getName());
+        verify(userDetailsService, times(1)).loadPrincipalByUsername(username);
+    }
 }
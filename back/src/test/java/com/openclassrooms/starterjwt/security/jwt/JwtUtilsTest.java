@@ -1,6 +1,9 @@
 package com.openclassrooms.starterjwt.security.jwt;
 
 import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
@@ -8,6 +11,8 @@ import org.mockito.MockitoAnnotations;
 import org.springframework.security.core.Authentication;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import java.time.Instant;
+
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
@@ -18,6 +23,8 @@ public class JwtUtilsTest {
 
     private JwtUtils jwtUtils;
 
+    private SimpleMeterRegistry meterRegistry;
+
     @Mock
     private Authentication authentication;
 
@@ -31,6 +38,14 @@ public class JwtUtilsTest {
 
         ReflectionTestUtils.setField(jwtUtils, "jwtSecret", "mySecretKey12345678901234567890");
         ReflectionTestUtils.setField(jwtUtils, "jwtExpirationMs", 60 * 1000);
+
+        meterRegistry = new SimpleMeterRegistry();
+        Metrics.addRegistry(meterRegistry);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        Metrics.removeRegistry(meterRegistry);
     }
 
     /**
@@ -116,4 +131,75 @@ public class JwtUtilsTest {
     public void testValidateJwtToken_illegalArgument() {
         assertFalse(jwtUtils.validateJwtToken(""));
     }
+
+    /**
+     * Tests that parsing a valid token returns the subject, id, admin flag and expiry of the user
+     */
+    @Test
+    public void testParseJwtTokenReturnsClaims() {
+        UserDetailsImpl userDetails = new UserDetailsImpl(
+                1L,
+                "Test",
+                "User",
+                "Testuser",
+                true,
+                null
+        );
+        when(authentication.getPrincipal()).thenReturn(userDetails);
+
+        String token = jwtUtils.generateJwtToken(authentication);
+        JwtClaims claims = jwtUtils.parseJwtToken(token);
+
+        assertNotNull(claims);
+        assertEquals("Test", claims.subject());
+        assertEquals(1L, claims.id());
+        assertTrue(claims.admin());
+        assertEquals("User", claims.firstName());
+        assertEquals("Testuser", claims.lastName());
+        assertTrue(claims.expiration().isAfter(Instant.now()));
+    }
+
+    /**
+     * Tests that a token signed with another secret is rejected
+     */
+    @Test
+    public void testParseJwtTokenInvalidSignature() {
+        UserDetailsImpl userDetails = new UserDetailsImpl(
+                1L,
+                "Test",
+                "User",
+                "Testuser",
+                true,
+                null
+        );
+        when(authentication.getPrincipal()).thenReturn(userDetails);
+
+        JwtUtils otherJwtUtils = new JwtUtils();
+        ReflectionTestUtils.setField(otherJwtUtils, "jwtSecret", "anotherSecretKey1234567890123456");
+        ReflectionTestUtils.setField(otherJwtUtils, "jwtExpirationMs", 60 * 1000);
+        String token = otherJwtUtils.generateJwtToken(authentication);
+
+        assertNull(jwtUtils.parseJwtToken(token));
+        assertFalse(jwtUtils.validateJwtToken(token));
+    }
+
+    /**
+     * Tests that each verification is counted by result
+     */
+    @Test
+    public void testParseJwtTokenCountsValidations() {
+        UserDetailsImpl userDetails = new UserDetailsImpl(1L, "Test", "User", "Testuser", false, null);
+        when(authentication.getPrincipal()).thenReturn(userDetails);
+        String token = jwtUtils.generateJwtToken(authentication);
+
+        jwtUtils.parseJwtToken(token);
+        jwtUtils.parseJwtToken(token);
+        jwtUtils.parseJwtToken("invalidToken");
+        jwtUtils.parseJwtToken("");
+
+        assertEquals(2, meterRegistry.get("jwt.validations").tag("result", "valid").counter().count());
+        assertEquals(1, meterRegistry.get("jwt.validations").tag("result", "malformed").counter().count());
+        assertEquals(1, meterRegistry.get("jwt.validations").tag("result", "empty").counter().count());
+        assertEquals(0, meterRegistry.get("jwt.validations").tag("result", "expired").counter().count());
+    }
 }
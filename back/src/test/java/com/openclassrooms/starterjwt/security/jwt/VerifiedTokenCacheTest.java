@@ -0,0 +1,74 @@
+package com.openclassrooms.starterjwt.security.jwt;
+
+import com.openclassrooms.starterjwt.config.CacheConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for the VerifiedTokenCache class, backed by the caches of CacheConfig
+ */
+public class VerifiedTokenCacheTest {
+
+    private CacheManager cacheManager;
+
+    private VerifiedTokenCache verifiedTokenCache;
+
+    @Mock
+    private JwtUtils jwtUtils;
+
+    /**
+     * Set up the caches with the application specs
+     */
+    @BeforeEach
+    public void setUp() {
+        MockitoAnnotations.openMocks(this);
+        CacheConfig cacheConfig = new CacheConfig();
+        ReflectionTestUtils.setField(cacheConfig, "principalsSpec", "maximumSize=10");
+        ReflectionTestUtils.setField(cacheConfig, "tokensSpec", "maximumSize=10,recordStats");
+        ReflectionTestUtils.setField(cacheConfig, "teachersSpec", "maximumSize=10");
+        cacheManager = cacheConfig.cacheManager();
+        verifiedTokenCache = new VerifiedTokenCache(jwtUtils, cacheManager);
+    }
+
+    /**
+     * Tests that a verified token is stored under its digest and served from the cache
+     */
+    @Test
+    public void testVerifyCachesByDigest() {
+        String token = "valid.jwt.token";
+        JwtClaims claims = new JwtClaims("Test", Instant.now().plusSeconds(60), 1L, false, "Test", "User");
+        when(jwtUtils.parseJwtToken(token)).thenReturn(claims);
+
+        assertEquals(claims, verifiedTokenCache.verify(token));
+        assertEquals(claims, verifiedTokenCache.verify(token));
+
+        verify(jwtUtils, times(1)).parseJwtToken(token);
+        assertNull(cacheManager.getCache(CacheConfig.TOKENS).get(token));
+        assertEquals(claims, cacheManager.getCache(CacheConfig.TOKENS).get(VerifiedTokenCache.digest(token), JwtClaims.class));
+    }
+
+    /**
+     * Tests that claims are not served once the token has expired
+     */
+    @Test
+    public void testVerifyExpiredTokenNotServed() {
+        String token = "expired.jwt.token";
+        JwtClaims claims = new JwtClaims("Test", Instant.now().minusSeconds(1), 1L, false, "Test", "User");
+        cacheManager.getCache(CacheConfig.TOKENS).put(VerifiedTokenCache.digest(token), claims);
+        when(jwtUtils.parseJwtToken(token)).thenReturn(null);
+
+        assertNull(verifiedTokenCache.verify(token));
+
+        verify(jwtUtils, times(1)).parseJwtToken(token);
+        assertNull(cacheManager.getCache(CacheConfig.TOKENS).get(VerifiedTokenCache.digest(token)));
+    }
+}
@@ -88,6 +88,19 @@ public class UserDetailsImplTest {
         assertEquals(new HashSet<>(), authorities);
     }
 
+    /**
+     * Tests that an admin user is granted the ROLE_ADMIN authority
+     *
+     * @see UserDetailsImpl#getAuthorities()
+     */
+    @Test
+    void testGetAuthoritiesAdmin() {
+        UserDetailsImpl userDetails = UserDetailsImpl.builder().admin(true).build();
+        Collection<? extends GrantedAuthority> authorities = userDetails.getAuthorities();
+        assertEquals(1, authorities.size());
+        assertEquals("ROLE_ADMIN", authorities.iterator().next().getAuthority());
+    }
+
     /**
      * Test that two UserDetailsImpl objects with the same ID are equal
      *
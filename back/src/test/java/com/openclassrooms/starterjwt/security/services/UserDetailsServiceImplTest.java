@@ -50,6 +50,7 @@ class UserDetailsServiceImplTest {
         mockUser.setFirstName("Test");
         mockUser.setLastName("User");
         mockUser.setPassword("password123!");
+        mockUser.setAdmin(true);
 
         when(userRepository.findByEmail("user@yoga.fr"))
                 .thenReturn(Optional.of(mockUser));
@@ -62,6 +63,57 @@ class UserDetailsServiceImplTest {
         assertEquals("user@yoga.fr", userDetails.getUsername());
         assertEquals("password123!", userDetails.getPassword());
         assertInstanceOf(UserDetailsImpl.class, userDetails);
+        assertTrue(((UserDetailsImpl) userDetails).getAdmin());
+        assertTrue(userDetails.getAuthorities().stream().anyMatch(authority -> "ROLE_ADMIN".equals(authority.getAuthority())));
+    }
+
+    /**
+     * Tests that loadPrincipalByUsername returns the user without its password hash
+     */
+    @Test
+    void testLoadPrincipalByUsernameUserExistsReturnsUserDetailsWithoutPassword() {
+        // Arrange
+        User mockUser = new User();
+        mockUser.setId(1L);
+        mockUser.setEmail("user@yoga.fr");
+        mockUser.setFirstName("Test");
+        mockUser.setLastName("User");
+        mockUser.setPassword("password123!");
+
+        when(userRepository.findByEmail("user@yoga.fr"))
+                .thenReturn(Optional.of(mockUser));
+
+        // Act
+        UserDetails userDetails = userDetailsService.loadPrincipalByUsername("user@yoga.fr");
+
+        // Assert
+        assertEquals("user@yoga.fr", userDetails.getUsername());
+        assertEquals(1L, ((UserDetailsImpl) userDetails).getId());
+        assertNull(userDetails.getPassword());
+    }
+
+    /**
+     * Tests that updatePassword stores the new hash on the user
+     */
+    @Test
+    void testUpdatePasswordStoresNewHash() {
+        // Arrange
+        User mockUser = new User();
+        mockUser.setId(1L);
+        mockUser.setEmail("user@yoga.fr");
+        mockUser.setPassword("$2a$04$legacy");
+
+        when(userRepository.findByEmail("user@yoga.fr"))
+                .thenReturn(Optional.of(mockUser));
+
+        // Act
+        UserDetails userDetails = userDetailsService.updatePassword(
+                UserDetailsImpl.builder().username("user@yoga.fr").password("$2a$04$legacy").build(),
+                "{bcrypt}$2a$10$upgraded");
+
+        // Assert
+        assertEquals("{bcrypt}$2a$10$upgraded", mockUser.getPassword());
+        assertEquals("{bcrypt}$2a$10$upgraded", userDetails.getPassword());
     }
 
     /**
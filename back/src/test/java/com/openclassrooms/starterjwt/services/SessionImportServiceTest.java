@@ -0,0 +1,178 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.dto.SessionDto;
+import com.openclassrooms.starterjwt.dto.SessionImportResult;
+import com.openclassrooms.starterjwt.exception.BadRequestException;
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.Teacher;
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+import com.openclassrooms.starterjwt.repository.TeacherRepository;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceContext;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration tests for the SessionImportService class
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "oc.app.import.batchSize=10",
+        "oc.app.import.maxRows=100"})
+@ActiveProfiles("test")
+@Transactional
+class SessionImportServiceTest {
+
+    @Autowired
+    private SessionImportService sessionImportService;
+
+    @Autowired
+    private SessionRepository sessionRepository;
+
+    @Autowired
+    private TeacherRepository teacherRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private Teacher teacher;
+
+    /**
+     * Empties the sessions and creates the teacher of the imported sessions
+     */
+    @BeforeEach
+    void setUp() {
+        entityManager.createNativeQuery("SET FOREIGN_KEY_CHECKS = 0").executeUpdate();
+        entityManager.createNativeQuery("DELETE FROM participate").executeUpdate();
+        entityManager.createNativeQuery("DELETE FROM sessions").executeUpdate();
+        entityManager.createNativeQuery("SET FOREIGN_KEY_CHECKS = 1").executeUpdate();
+        entityManager.flush();
+
+        teacher = teacherRepository.save(new Teacher().setFirstName("Import").setLastName("Teacher"));
+    }
+
+    /**
+     * Tests that the sessions are inserted in JDBC batches of {@code oc.app.import.batchSize}
+     */
+    @Test
+    void testImportSessionsInsertsInBatches() {
+        List<SessionDto> sessionDtos = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            sessionDtos.add(sessionDto("Session " + i, teacher.getId()));
+        }
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        SessionImportResult result = sessionImportService.importSessions(sessionDtos);
+
+        assertEquals(25, result.getCreated());
+        assertTrue(result.getErrors().isEmpty());
+        assertEquals(25, statistics.getEntityInsertCount());
+        // One INSERT per batch of 10. The id generator works on a connection of its own and is not counted
+        assertEquals(3, statistics.getPrepareStatementCount());
+        List<Session> sessions = sessionRepository.findAllById(result.getIds());
+        assertEquals(25, sessions.size());
+        assertTrue(sessions.stream().allMatch(session -> session.getParticipantCount() == 0));
+    }
+
+    /**
+     * Tests that nothing is created when a row is invalid, and that the errors of every invalid row are reported
+     */
+    @Test
+    void testImportSessionsReportsEveryInvalidRow() {
+        SessionDto withParticipants = sessionDto("Group", teacher.getId());
+        withParticipants.setUsers(List.of(1L));
+
+        SessionImportResult result = sessionImportService.importSessions(List.of(
+                sessionDto("Valid", teacher.getId()),
+                sessionDto("", teacher.getId()),
+                sessionDto("Unknown teacher", teacher.getId() + 1000),
+                withParticipants));
+
+        assertEquals(0, result.getCreated());
+        assertEquals(List.of(
+                new SessionImportResult.RowError(2, List.of("name: must not be blank")),
+                new SessionImportResult.RowError(3, List.of("teacher_id: teacher not found")),
+                new SessionImportResult.RowError(4, List.of("users: participants cannot be imported"))), result.getErrors());
+        assertEquals(0, sessionRepository.count());
+    }
+
+    /**
+     * Tests that a null element of the array is reported as an invalid row rather than skipped
+     */
+    @Test
+    void testImportSessionsReportsNullRow() {
+        List<SessionDto> sessionDtos = new ArrayList<>();
+        sessionDtos.add(sessionDto("Valid", teacher.getId()));
+        sessionDtos.add(null);
+
+        SessionImportResult result = sessionImportService.importSessions(sessionDtos);
+
+        assertEquals(0, result.getCreated());
+        assertEquals(List.of(new SessionImportResult.RowError(2, List.of("session: must not be null"))), result.getErrors());
+        assertEquals(0, sessionRepository.count());
+    }
+
+    /**
+     * Tests that a CSV import reports the unreadable rows along with the invalid ones
+     */
+    @Test
+    void testImportCsv() {
+        String header = "name,date,teacher_id,description\n";
+
+        SessionImportResult invalid = sessionImportService.importCsv(header
+                + "Yoga,not a date," + teacher.getId() + ",Bad date\n"
+                + "," + "2024-01-15," + teacher.getId() + ",No name\n");
+        SessionImportResult valid = sessionImportService.importCsv(header
+                + "Yoga,2024-01-15," + teacher.getId() + ",Fine\n");
+
+        assertEquals(List.of(
+                new SessionImportResult.RowError(1, List.of("date: invalid value 'not a date'")),
+                new SessionImportResult.RowError(2, List.of("name: must not be blank"))), invalid.getErrors());
+        assertEquals(1, valid.getCreated());
+        assertEquals("Yoga", sessionRepository.findById(valid.getIds().get(0)).orElseThrow().getName());
+    }
+
+    /**
+     * Tests that an empty import or one above {@code oc.app.import.maxRows} is rejected as a whole
+     */
+    @Test
+    void testImportSessionsRowLimits() {
+        List<SessionDto> tooMany = new ArrayList<>();
+        for (int i = 0; i < 101; i++) {
+            tooMany.add(sessionDto("Session " + i, teacher.getId()));
+        }
+
+        assertThrows(BadRequestException.class, () -> sessionImportService.importSessions(List.of()));
+        assertThrows(BadRequestException.class, () -> sessionImportService.importSessions(tooMany));
+    }
+
+    private static SessionDto sessionDto(String name, Long teacherId) {
+        SessionDto sessionDto = new SessionDto();
+        sessionDto.setName(name);
+        sessionDto.setDate(new Date(1705311000000L));
+        sessionDto.setTeacher_id(teacherId);
+        sessionDto.setDescription("Imported");
+        return sessionDto;
+    }
+}
@@ -0,0 +1,228 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.dto.SessionDto;
+import com.openclassrooms.starterjwt.exception.BadRequestException;
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.SessionSeries;
+import com.openclassrooms.starterjwt.models.Teacher;
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+import com.openclassrooms.starterjwt.repository.TeacherRepository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Integration tests for the SessionSeriesService class
+ */
+@SpringBootTest(properties = "oc.app.series.horizon=P28D")
+@ActiveProfiles("test")
+@Transactional
+class SessionSeriesServiceTest {
+
+    @Autowired
+    private SessionSeriesService sessionSeriesService;
+
+    @Autowired
+    private SessionService sessionService;
+
+    @Autowired
+    private SessionRepository sessionRepository;
+
+    @Autowired
+    private TeacherRepository teacherRepository;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private Teacher teacher;
+
+    private Instant start;
+
+    /**
+     * Creates the teacher of the series, which start tomorrow at 10:00 UTC. The horizon then covers 27 days of them
+     */
+    @BeforeEach
+    void setUp() {
+        teacher = teacherRepository.save(new Teacher().setFirstName("Series").setLastName("Teacher"));
+        start = Instant.now().truncatedTo(ChronoUnit.DAYS).plus(Duration.ofDays(1)).plus(Duration.ofHours(10));
+    }
+
+    /**
+     * Tests that only the occurrences within the horizon are written as sessions, and that the last occurrence is
+     * derived from the count
+     */
+    @Test
+    void testCreateMaterializesOccurrencesWithinHorizon() {
+        SessionSeries series = sessionSeriesService.create(series(EnumSet.allOf(DayOfWeek.class)).setOccurrenceCount(40));
+
+        List<Session> sessions = sessionsOf(series);
+        assertEquals(27, sessions.size());
+        assertTrue(sessions.stream().allMatch(session -> session.getName().equals("Morning flow")
+                && session.getTeacher().getId().equals(teacher.getId())
+                && session.getCapacity() == 12
+                && session.getParticipantCount() == 0));
+        assertTrue(sessions.stream().allMatch(session ->
+                LocalTime.ofInstant(session.getDate().toInstant(), ZoneOffset.UTC).equals(LocalTime.of(10, 0))));
+
+        SessionSeries saved = sessionSeriesService.getById(series.getId());
+        List<Instant> all = SessionSeriesService.occurrences(saved, start, Instant.MAX, 100);
+        assertEquals(40, all.size());
+        assertEquals(all.get(39), saved.getEndsAt().toInstant());
+        assertEquals(start.plus(Duration.ofDays(27)).truncatedTo(ChronoUnit.DAYS), saved.getMaterializedUntil().toInstant());
+    }
+
+    /**
+     * Tests that a series ending at a date has its occurrences up to that date, inclusive
+     */
+    @Test
+    void testCreateWithUntil() {
+        Date until = Date.from(start.plus(Duration.ofDays(10)));
+
+        SessionSeries series = sessionSeriesService.create(series(EnumSet.allOf(DayOfWeek.class)).setUntil(until));
+
+        assertEquals(11, sessionsOf(series).size());
+        assertEquals(until.toInstant(), sessionSeriesService.getById(series.getId()).getEndsAt().toInstant());
+    }
+
+    /**
+     * Tests that a series with both a count and an until date, or without days, is rejected
+     */
+    @Test
+    void testCreateInvalidSeriesThrows() {
+        assertThrows(BadRequestException.class, () -> sessionSeriesService.create(series(EnumSet.of(DayOfWeek.MONDAY))
+                .setOccurrenceCount(3)
+                .setUntil(Date.from(start.plus(Duration.ofDays(30))))));
+        assertThrows(BadRequestException.class, () -> sessionSeriesService.create(series(EnumSet.noneOf(DayOfWeek.class))));
+        assertThrows(BadRequestException.class, () -> sessionSeriesService.create(series(EnumSet.of(DayOfWeek.MONDAY))
+                .setZone("Mars/Olympus_Mons")));
+    }
+
+    /**
+     * Tests that a range merges the sessions, materialized occurrences included, with the occurrences past the
+     * horizon, in date order
+     */
+    @Test
+    void testFindOccurrencesMergesVirtualOccurrences() {
+        SessionSeries series = sessionSeriesService.create(series(EnumSet.allOf(DayOfWeek.class)).setOccurrenceCount(40));
+        Session single = sessionService.create(new Session()
+                .setName("Workshop")
+                .setDescription("Single session")
+                .setDate(Date.from(start.plus(Duration.ofDays(2))))
+                .setTeacher(teacher));
+
+        List<SessionDto> occurrences = sessionSeriesService.findOccurrences(teacher.getId(),
+                Date.from(start), Date.from(start.plus(Duration.ofDays(84))));
+
+        assertEquals(41, occurrences.size());
+        assertEquals(28, occurrences.stream().filter(occurrence -> occurrence.getId() != null).count());
+        assertTrue(occurrences.stream().anyMatch(occurrence -> single.getId().equals(occurrence.getId())));
+        List<SessionDto> virtual = occurrences.stream().filter(occurrence -> occurrence.getId() == null).collect(Collectors.toList());
+        assertEquals(13, virtual.size());
+        assertTrue(virtual.stream().allMatch(occurrence -> series.getId().equals(occurrence.getSeries_id())
+                && teacher.getId().equals(occurrence.getTeacher_id())
+                && occurrence.getUsers().isEmpty()));
+        for (int i = 1; i < occurrences.size(); i++) {
+            assertFalse(occurrences.get(i).getDate().before(occurrences.get(i - 1).getDate()));
+        }
+        assertEquals(40, occurrences.stream().filter(occurrence -> Objects.equals(series.getId(), occurrence.getSeries_id())).count());
+    }
+
+    /**
+     * Tests that a range after the last occurrence of the series has none of them
+     */
+    @Test
+    void testFindOccurrencesAfterEnd() {
+        sessionSeriesService.create(series(EnumSet.of(DayOfWeek.MONDAY)).setOccurrenceCount(2));
+
+        assertTrue(sessionSeriesService.findOccurrences(teacher.getId(),
+                Date.from(start.plus(Duration.ofDays(60))), Date.from(start.plus(Duration.ofDays(120)))).isEmpty());
+        assertThrows(BadRequestException.class, () -> sessionSeriesService.findOccurrences(null,
+                Date.from(start), Date.from(start.plus(Duration.ofDays(400)))));
+    }
+
+    /**
+     * Tests that materializing writes the occurrences behind the horizon once
+     */
+    @Test
+    void testMaterialize() {
+        SessionSeries series = sessionSeriesService.create(series(EnumSet.allOf(DayOfWeek.class)));
+        // As if the series had been created beyond the horizon, which has now caught up with it
+        entityManager.createQuery("DELETE FROM Session s WHERE s.seriesId = :id").setParameter("id", series.getId()).executeUpdate();
+        entityManager.createQuery("UPDATE SessionSeries s SET s.materializedUntil = s.start WHERE s.id = :id")
+                .setParameter("id", series.getId()).executeUpdate();
+        entityManager.clear();
+        assertTrue(sessionSeriesService.findIdsToMaterialize().contains(series.getId()));
+
+        sessionSeriesService.materialize(series.getId());
+        sessionSeriesService.materialize(series.getId());
+
+        assertEquals(27, sessionsOf(series).size());
+        assertFalse(sessionSeriesService.findIdsToMaterialize().contains(series.getId()));
+    }
+
+    /**
+     * Tests that occurrences keep their local time when the offset of the zone changes, and that a range far from the
+     * start of the series is computed
+     */
+    @Test
+    void testOccurrencesKeepLocalTimeAcrossDaylightSaving() {
+        ZoneId paris = ZoneId.of("Europe/Paris");
+        SessionSeries series = new SessionSeries()
+                .setStart(Date.from(LocalDateTime.of(2024, 3, 18, 18, 0).atZone(paris).toInstant()))
+                .setZone(paris.getId())
+                .setDaysOfWeek(EnumSet.of(DayOfWeek.MONDAY));
+
+        List<Instant> occurrences = SessionSeriesService.occurrences(series,
+                series.getStart().toInstant(), LocalDateTime.of(2024, 4, 9, 0, 0).atZone(paris).toInstant(), Integer.MAX_VALUE);
+
+        assertEquals(List.of(
+                Instant.parse("2024-03-18T17:00:00Z"),
+                Instant.parse("2024-03-25T17:00:00Z"),
+                Instant.parse("2024-04-01T16:00:00Z"),
+                Instant.parse("2024-04-08T16:00:00Z")), occurrences);
+        assertEquals(List.of(Instant.parse("2030-01-07T17:00:00Z"), Instant.parse("2030-01-14T17:00:00Z")),
+                SessionSeriesService.occurrences(series, Instant.parse("2030-01-01T00:00:00Z"),
+                        Instant.parse("2030-01-15T00:00:00Z"), Integer.MAX_VALUE));
+    }
+
+    private SessionSeries series(EnumSet<DayOfWeek> days) {
+        return new SessionSeries()
+                .setName("Morning flow")
+                .setDescription("Weekly class")
+                .setTeacher(teacher)
+                .setCapacity(12)
+                .setStart(Date.from(start))
+                .setZone("UTC")
+                .setDaysOfWeek(days);
+    }
+
+    private List<Session> sessionsOf(SessionSeries series) {
+        return sessionRepository.findAll().stream()
+                .filter(session -> series.getId().equals(session.getSeriesId()))
+                .collect(Collectors.toList());
+    }
+}
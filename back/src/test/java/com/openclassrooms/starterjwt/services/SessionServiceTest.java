@@ -1,5 +1,7 @@
 package com.openclassrooms.starterjwt.services;
 
+import com.openclassrooms.starterjwt.dto.ParticipationResult;
+import com.openclassrooms.starterjwt.dto.SessionCursor;
 import com.openclassrooms.starterjwt.exception.BadRequestException;
 import com.openclassrooms.starterjwt.exception.NotFoundException;
 import com.openclassrooms.starterjwt.models.Session;
@@ -9,30 +11,42 @@ import com.openclassrooms.starterjwt.repository.SessionRepository;
 import com.openclassrooms.starterjwt.repository.TeacherRepository;
 import com.openclassrooms.starterjwt.repository.UserRepository;
 
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Slice;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.transaction.TestTransaction;
 import org.springframework.transaction.annotation.Transactional;
 
 import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
 import javax.persistence.PersistenceContext;
+import java.time.Instant;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
  * Integration tests for the SessionService class
  */
-@SpringBootTest
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
 @ActiveProfiles("test")
 @Transactional
 @DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
 class SessionServiceTest {
 
+    private static final String PARTICIPANTS_ROLE = Session.class.getName() + ".users";
+
     @Autowired
     private SessionRepository sessionRepository;
 
@@ -45,6 +59,12 @@ class SessionServiceTest {
     @Autowired
     private SessionService sessionService;
 
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     @PersistenceContext
     private EntityManager entityManager;
 
@@ -111,6 +131,32 @@ class SessionServiceTest {
         assertEquals(session.getTeacher().getId(), created.getTeacher().getId());
     }
 
+    /**
+     * Tests that creating a session counts the participants it is created with
+     */
+    @Test
+    void testCreateSessionCountsParticipants() {
+        session.getUsers().add(user);
+        Session created = sessionService.create(session);
+        entityManager.clear();
+
+        Session found = sessionRepository.findById(created.getId()).orElse(null);
+        assertNotNull(found);
+        assertEquals(1, found.getParticipantCount());
+    }
+
+    /**
+     * Tests that a session cannot be created with more participants than its capacity
+     */
+    @Test
+    void testCreateSessionOverCapacityThrows() {
+        session.setCapacity(1);
+        session.getUsers().add(user);
+        session.getUsers().add(userRepository.save(new User("other@example.com", "User", "Other", "password", false)));
+
+        assertThrows(BadRequestException.class, () -> sessionService.create(session));
+    }
+
     /**
      * Tests the behavior of the {@code SessionService#delete} method
      */
@@ -137,6 +183,120 @@ class SessionServiceTest {
         assertEquals(session.getName(), sessions.get(0).getName());
     }
 
+    /**
+     * Tests that {@code SessionService#findPage} walks the sessions in (date, id) order using the cursor
+     */
+    @Test
+    void testFindPageFollowsCursor() {
+        Session first = sessionRepository.save(copyOf(session, new Date(1700000000000L)));
+        Session second = sessionRepository.save(copyOf(session, new Date(1700000000000L)));
+        Session third = sessionRepository.save(copyOf(session, new Date(1700003600000L)));
+
+        Slice<Session> firstPage = sessionService.findPage(null, null, null, null, 2);
+
+        assertTrue(firstPage.hasNext());
+        assertEquals(List.of(first.getId(), second.getId()),
+                firstPage.getContent().stream().map(Session::getId).toList());
+
+        SessionCursor cursor = new SessionCursor(second.getDate(), second.getId());
+        Slice<Session> secondPage = sessionService.findPage(null, null, null, cursor, 2);
+
+        assertFalse(secondPage.hasNext());
+        assertEquals(List.of(third.getId()),
+                secondPage.getContent().stream().map(Session::getId).toList());
+    }
+
+    /**
+     * Tests that {@code SessionService#findPage} applies the teacher and date range filters
+     */
+    @Test
+    void testFindPageFilters() {
+        Teacher otherTeacher = new Teacher();
+        otherTeacher.setFirstName("Other");
+        otherTeacher.setLastName("Teacher");
+        otherTeacher = teacherRepository.save(otherTeacher);
+
+        sessionRepository.save(copyOf(session, new Date(1700000000000L)));
+        Session inRange = sessionRepository.save(copyOf(session, new Date(1700003600000L)));
+        sessionRepository.save(copyOf(session, new Date(1700007200000L)));
+        sessionRepository.save(copyOf(session, new Date(1700003600000L)).setTeacher(otherTeacher));
+
+        Slice<Session> page = sessionService.findPage(teacher.getId(),
+                new Date(1700003600000L), new Date(1700007200000L), null, 10);
+
+        assertFalse(page.hasNext());
+        assertEquals(List.of(inRange.getId()),
+                page.getContent().stream().map(Session::getId).toList());
+    }
+
+    /**
+     * Tests that {@code SessionService#findPage} caps the page size and rejects empty pages
+     */
+    @Test
+    void testFindPageSizeLimits() {
+        for (int i = 0; i < SessionService.MAX_PAGE_SIZE + 1; i++) {
+            sessionRepository.save(copyOf(session, new Date(1700000000000L + i * 1000L)));
+        }
+
+        Slice<Session> page = sessionService.findPage(null, null, null, null, 1000);
+
+        assertEquals(SessionService.MAX_PAGE_SIZE, page.getNumberOfElements());
+        assertTrue(page.hasNext());
+        assertThrows(BadRequestException.class, () ->
+                sessionService.findPage(null, null, null, null, 0));
+    }
+
+    /**
+     * Tests that {@code SessionService#forEachPage} hands every session over in (date, id) order, one page at a time,
+     * with the participants of the page, and detaches each page once consumed
+     */
+    @Test
+    void testForEachPageWalksAllPages() throws Exception {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < SessionService.MAX_PAGE_SIZE + 1; i++) {
+            ids.add(sessionRepository.save(copyOf(session, new Date(1700000000000L + i * 1000L))
+                    .setUsers(new ArrayList<>(List.of(user)))).getId());
+        }
+        entityManager.flush();
+
+        List<Integer> pageSizes = new ArrayList<>();
+        List<Long> streamed = new ArrayList<>();
+        List<Session> firstPage = new ArrayList<>();
+        sessionService.forEachPage(null, null, null, (sessions, participants) -> {
+            if (firstPage.isEmpty()) {
+                firstPage.addAll(sessions);
+            }
+            pageSizes.add(sessions.size());
+            for (Session streamedSession : sessions) {
+                streamed.add(streamedSession.getId());
+                assertEquals(List.of(user.getId()), participants.get(streamedSession.getId()));
+            }
+        });
+
+        assertEquals(List.of(SessionService.MAX_PAGE_SIZE, 1), pageSizes);
+        assertEquals(ids, streamed);
+        assertFalse(entityManager.contains(firstPage.get(0)));
+    }
+
+    /**
+     * Tests that {@code SessionService#findParticipantIds} groups the participant ids by session
+     */
+    @Test
+    void testFindParticipantIds() {
+        session.getUsers().add(user);
+        Session withParticipant = sessionRepository.save(session);
+        Session withoutParticipant = sessionRepository.save(copyOf(session, new Date()));
+        entityManager.flush();
+
+        Map<Long, List<Long>> all = sessionService.findParticipantIds();
+        Map<Long, List<Long>> selected = sessionService.findParticipantIds(
+                List.of(withParticipant.getId(), withoutParticipant.getId()));
+
+        assertEquals(Map.of(withParticipant.getId(), List.of(user.getId())), all);
+        assertEquals(all, selected);
+        assertTrue(sessionService.findParticipantIds(List.of()).isEmpty());
+    }
+
     /**
      * Tests the behavior of the {@code SessionService#getById} method when a session is found
      */
@@ -193,10 +353,53 @@ class SessionServiceTest {
         Session savedSession = sessionRepository.save(session);
 
         sessionService.participate(savedSession.getId(), user.getId());
+        entityManager.clear();
 
         Session updatedSession = sessionRepository.findById(savedSession.getId()).orElse(null);
         assertNotNull(updatedSession);
         assertTrue(updatedSession.getUsers().contains(user));
+        assertEquals(1, updatedSession.getParticipantCount());
+    }
+
+    /**
+     * Tests that the native seat counter updates leave the date of the session as it was
+     */
+    @Test
+    void testParticipationKeepsSessionDate() {
+        Date date = Date.from(Instant.parse("2024-01-15T10:00:00Z"));
+        Session created = sessionService.create(session.setDate(date));
+
+        sessionService.participate(created.getId(), user.getId());
+        sessionService.noLongerParticipate(created.getId(), user.getId());
+        entityManager.clear();
+
+        assertEquals(date.toInstant(), sessionRepository.findById(created.getId()).orElseThrow().getDate().toInstant());
+    }
+
+    /**
+     * Tests that the participate method throws a BadRequestException when every seat of the session is taken
+     */
+    @Test
+    void testParticipateSessionFullThrows() {
+        session.setCapacity(1);
+        session.getUsers().add(user);
+        Session savedSession = sessionService.create(session);
+
+        User otherUser = userRepository.save(new User("other@example.com", "User", "Other", "password", false));
+
+        assertThrows(BadRequestException.class, () ->
+                sessionService.participate(savedSession.getId(), otherUser.getId()));
+    }
+
+    /**
+     * Tests that the participate method throws a NotFoundException when the user does not exist
+     */
+    @Test
+    void testParticipateUserNotFoundThrows() {
+        Session savedSession = sessionRepository.save(session);
+
+        assertThrows(NotFoundException.class, () ->
+                sessionService.participate(savedSession.getId(), 999L));
     }
 
     /**
@@ -222,6 +425,64 @@ class SessionServiceTest {
                 sessionService.participate(999L, user.getId()));
     }
 
+    /**
+     * Tests that participateAll enrolls the users in order until the session is full, and reports every user once
+     */
+    @Test
+    void testParticipateAllReportsEachUser() {
+        session.setCapacity(2);
+        session.getUsers().add(user);
+        Session savedSession = sessionService.create(session);
+        User first = userRepository.save(new User("first@example.com", "User", "First", "password", false));
+        User second = userRepository.save(new User("second@example.com", "User", "Second", "password", false));
+
+        List<ParticipationResult> results = sessionService.participateAll(savedSession.getId(),
+                List.of(user.getId(), first.getId(), 999L, second.getId(), first.getId()));
+        entityManager.clear();
+
+        assertEquals(List.of(
+                new ParticipationResult(user.getId(), ParticipationResult.Outcome.ALREADY_PARTICIPATING),
+                new ParticipationResult(first.getId(), ParticipationResult.Outcome.ENROLLED),
+                new ParticipationResult(999L, ParticipationResult.Outcome.USER_NOT_FOUND),
+                new ParticipationResult(second.getId(), ParticipationResult.Outcome.SESSION_FULL)), results);
+        Session updatedSession = sessionRepository.findById(savedSession.getId()).orElseThrow();
+        assertEquals(2, updatedSession.getParticipantCount());
+        assertEquals(Set.of(user.getId(), first.getId()),
+                updatedSession.getUsers().stream().map(User::getId).collect(Collectors.toSet()));
+    }
+
+    /**
+     * Tests that participateAll throws a NotFoundException when the session does not exist
+     */
+    @Test
+    void testParticipateAllSessionNotFoundThrows() {
+        assertThrows(NotFoundException.class, () ->
+                sessionService.participateAll(999L, List.of(user.getId())));
+    }
+
+    /**
+     * Tests that noLongerParticipateAll removes the participants only, and reports every user
+     */
+    @Test
+    void testNoLongerParticipateAllReportsEachUser() {
+        User other = userRepository.save(new User("other@example.com", "User", "Other", "password", false));
+        User stranger = userRepository.save(new User("stranger@example.com", "User", "Stranger", "password", false));
+        session.setUsers(new ArrayList<>(List.of(user, other)));
+        Session savedSession = sessionService.create(session);
+
+        List<ParticipationResult> results = sessionService.noLongerParticipateAll(savedSession.getId(),
+                List.of(user.getId(), stranger.getId(), 999L));
+        entityManager.clear();
+
+        assertEquals(List.of(
+                new ParticipationResult(user.getId(), ParticipationResult.Outcome.UNENROLLED),
+                new ParticipationResult(stranger.getId(), ParticipationResult.Outcome.NOT_PARTICIPATING),
+                new ParticipationResult(999L, ParticipationResult.Outcome.USER_NOT_FOUND)), results);
+        Session updatedSession = sessionRepository.findById(savedSession.getId()).orElseThrow();
+        assertEquals(1, updatedSession.getParticipantCount());
+        assertEquals(List.of(other.getId()), updatedSession.getUsers().stream().map(User::getId).collect(Collectors.toList()));
+    }
+
     /**
      * Tests the behavior of the noLongerParticipate method when the user has participated in the session
      *
@@ -233,12 +494,51 @@ class SessionServiceTest {
         Session savedSession = sessionRepository.save(session);
 
         sessionService.noLongerParticipate(savedSession.getId(), user.getId());
+        entityManager.clear();
 
         Session updatedSession = sessionRepository.findById(savedSession.getId()).orElse(null);
         assertNotNull(updatedSession);
         assertFalse(updatedSession.getUsers().contains(user));
     }
 
+    /**
+     * Tests that noLongerParticipate gives the seat back
+     */
+    @Test
+    void testNoLongerParticipateReleasesSeat() {
+        session.getUsers().add(user);
+        Session savedSession = sessionService.create(session);
+
+        sessionService.noLongerParticipate(savedSession.getId(), user.getId());
+        entityManager.clear();
+
+        Session updatedSession = sessionRepository.findById(savedSession.getId()).orElse(null);
+        assertNotNull(updatedSession);
+        assertEquals(0, updatedSession.getParticipantCount());
+    }
+
+    /**
+     * Tests that noLongerParticipate issues the same statements for a class of 1 and a class of 200
+     */
+    @Test
+    void testNoLongerParticipateQueryCountDoesNotGrowWithClassSize() {
+        session.getUsers().add(user);
+        Session smallClass = sessionService.create(session);
+
+        List<User> participants = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            participants.add(userRepository.save(new User("user" + i + "@example.com", "User", "Test", "password", false)));
+        }
+        Session largeClass = sessionService.create(copyOf(session, new Date()).setUsers(participants));
+        entityManager.clear();
+
+        long smallClassQueries = countQueries(() -> sessionService.noLongerParticipate(smallClass.getId(), user.getId()));
+        long largeClassQueries = countQueries(() -> sessionService.noLongerParticipate(largeClass.getId(), participants.get(100).getId()));
+
+        assertEquals(2, smallClassQueries);
+        assertEquals(smallClassQueries, largeClassQueries);
+    }
+
     /**
      * Tests that the noLongerParticipate method throws a BadRequestException
      * when the user has not participated in this session
@@ -259,4 +559,129 @@ class SessionServiceTest {
         assertThrows(NotFoundException.class, () ->
                 sessionService.noLongerParticipate(999L, user.getId()));
     }
+
+    /**
+     * Tests that a session read twice is served by the second-level cache, and that hits are published as metrics
+     */
+    @Test
+    void testGetByIdServedFromSecondLevelCache() {
+        Session savedSession = createCommittedAndCached(session);
+
+        long queries = countQueries(() -> sessionService.getById(savedSession.getId()));
+
+        assertEquals(0, queries);
+        FunctionCounter hits = meterRegistry.find("hibernate.second.level.cache.requests")
+                .tags("region", "sessions", "result", "hit")
+                .functionCounter();
+        assertNotNull(hits);
+        assertTrue(hits.count() > 0);
+    }
+
+    /**
+     * Tests that taking a seat invalidates the cached session and its cached participants, but not the other regions
+     */
+    @Test
+    void testParticipateEvictsCachedSession() {
+        Session savedSession = createCommittedAndCached(session);
+        Cache cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+        assertTrue(cache.containsEntity(Session.class, savedSession.getId()));
+        assertTrue(cache.containsCollection(PARTICIPANTS_ROLE, savedSession.getId()));
+        assertTrue(cache.containsEntity(Teacher.class, teacher.getId()));
+
+        sessionService.participate(savedSession.getId(), user.getId());
+        commit();
+
+        assertFalse(cache.containsEntity(Session.class, savedSession.getId()));
+        assertFalse(cache.containsCollection(PARTICIPANTS_ROLE, savedSession.getId()));
+        assertTrue(cache.containsEntity(Teacher.class, teacher.getId()));
+        Session reloaded = sessionService.getById(savedSession.getId());
+        assertEquals(1, reloaded.getParticipantCount());
+        assertEquals(List.of(user.getId()), reloaded.getUsers().stream().map(User::getId).collect(Collectors.toList()));
+    }
+
+    /**
+     * Tests that giving a seat back invalidates the cached session and its cached participants
+     */
+    @Test
+    void testNoLongerParticipateEvictsCachedSession() {
+        session.setUsers(new ArrayList<>(List.of(user)));
+        Session savedSession = createCommittedAndCached(session);
+
+        sessionService.noLongerParticipate(savedSession.getId(), user.getId());
+        commit();
+
+        Session reloaded = sessionService.getById(savedSession.getId());
+        assertEquals(0, reloaded.getParticipantCount());
+        assertTrue(reloaded.getUsers().isEmpty());
+    }
+
+    /**
+     * Tests that the batch writes of participateAll, which bypass Hibernate, still invalidate the cached session and
+     * its cached participants
+     */
+    @Test
+    void testParticipateAllEvictsCachedSession() {
+        Session savedSession = createCommittedAndCached(session);
+
+        sessionService.participateAll(savedSession.getId(), List.of(user.getId()));
+        commit();
+
+        Session reloaded = sessionService.getById(savedSession.getId());
+        assertEquals(1, reloaded.getParticipantCount());
+        assertEquals(List.of(user.getId()), reloaded.getUsers().stream().map(User::getId).collect(Collectors.toList()));
+    }
+
+    /**
+     * Tests that an update is not hidden by the cached session
+     */
+    @Test
+    void testUpdateRefreshesCachedSession() {
+        Session savedSession = createCommittedAndCached(session);
+
+        sessionService.update(savedSession.getId(), copyOf(savedSession, savedSession.getDate()).setName("Renamed"));
+        commit();
+
+        assertEquals("Renamed", sessionService.getById(savedSession.getId()).getName());
+    }
+
+    private static Session copyOf(Session template, Date date) {
+        return new Session()
+                .setName(template.getName())
+                .setDescription(template.getDescription())
+                .setDate(date)
+                .setTeacher(template.getTeacher())
+                .setUsers(new ArrayList<>());
+    }
+
+    /**
+     * Commits the session and reads it once with its participants, so that both are in the second-level cache, then
+     * starts the transaction of the test. A read-write cache entry is only visible to transactions started after it.
+     */
+    private Session createCommittedAndCached(Session template) {
+        Session savedSession = sessionService.create(template);
+        commit();
+
+        sessionService.getById(savedSession.getId()).getUsers().size();
+        TestTransaction.end();
+        TestTransaction.start();
+        return savedSession;
+    }
+
+    /**
+     * Commits the test transaction and starts a new one. Native writes invalidate their cache regions on completion.
+     */
+    private void commit() {
+        TestTransaction.flagForCommit();
+        TestTransaction.end();
+        TestTransaction.start();
+    }
+
+    private long countQueries(Runnable action) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        action.run();
+
+        return statistics.getPrepareStatementCount();
+    }
 }
@@ -1,5 +1,6 @@
 package com.openclassrooms.starterjwt.services;
 
+import com.openclassrooms.starterjwt.config.CacheConfig;
 import com.openclassrooms.starterjwt.models.Teacher;
 import com.openclassrooms.starterjwt.repository.TeacherRepository;
 
@@ -8,7 +9,10 @@ import org.junit.jupiter.api.Test;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.transaction.TestTransaction;
 import org.springframework.transaction.annotation.Transactional;
 
 import javax.persistence.EntityManager;
@@ -33,9 +37,14 @@ class TeacherServiceTest {
     @Autowired
     private TeacherService teacherService;
 
+    @Autowired
+    private CacheManager cacheManager;
+
     @PersistenceContext
     private EntityManager entityManager;
 
+    private Cache teachers;
+
     /**
      * Sets up the test data before each test
      */
@@ -46,6 +55,10 @@ class TeacherServiceTest {
         entityManager.createNativeQuery("DELETE FROM teachers").executeUpdate();
         entityManager.createNativeQuery("SET FOREIGN_KEY_CHECKS = 1").executeUpdate();
         entityManager.flush();
+
+        // The native deletes above bypass the eviction listener
+        teachers = cacheManager.getCache(CacheConfig.TEACHERS);
+        teachers.clear();
     }
 
     /**
@@ -116,4 +129,72 @@ class TeacherServiceTest {
         // Assert
         assertNull(result);
     }
+
+    /**
+     * Tests that a teacher is read once and then served from the cache
+     */
+    @Test
+    void testFindById_IsCached() {
+        // Arrange
+        Teacher savedTeacher = teacherRepository.save(new Teacher().setLastName("Teacher1").setFirstName("First1"));
+
+        // Act
+        Teacher first = teacherService.findById(savedTeacher.getId());
+        Teacher second = teacherService.findById(savedTeacher.getId());
+
+        // Assert
+        assertSame(first, second);
+        assertNotNull(teachers.get(savedTeacher.getId()));
+    }
+
+    /**
+     * Tests that an unknown teacher is not cached
+     */
+    @Test
+    void testFindById_NotFoundIsNotCached() {
+        // Act
+        teacherService.findById(999L);
+
+        // Assert
+        assertNull(teachers.get(999L));
+    }
+
+    /**
+     * Tests that every update of a teacher bumps its version, however close together the updates are
+     */
+    @Test
+    void testSave_BumpsVersion() {
+        // Arrange
+        Teacher teacher = teacherRepository.saveAndFlush(new Teacher().setLastName("Teacher1").setFirstName("First1"));
+        Long version = teacher.getVersion();
+
+        // Act
+        teacherRepository.saveAndFlush(teacher.setFirstName("First2"));
+        teacherRepository.saveAndFlush(teacher.setFirstName("First3"));
+        entityManager.clear();
+
+        // Assert
+        assertEquals(version + 2, teacherRepository.findById(teacher.getId()).orElseThrow().getVersion());
+    }
+
+    /**
+     * Tests that creating a teacher evicts the cached teacher list once the creation is committed
+     */
+    @Test
+    void testSave_EvictsCachedList() {
+        // Arrange
+        teacherRepository.save(new Teacher().setLastName("Teacher1").setFirstName("First1"));
+        TestTransaction.flagForCommit();
+        TestTransaction.end();
+
+        assertEquals(1, teacherService.findAll().size());
+        assertNotNull(teachers.get("all"));
+
+        // Act
+        teacherRepository.save(new Teacher().setLastName("Teacher2").setFirstName("First2"));
+
+        // Assert
+        assertNull(teachers.get("all"));
+        assertEquals(2, teacherService.findAll().size());
+    }
 }
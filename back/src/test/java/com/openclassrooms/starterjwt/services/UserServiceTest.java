@@ -1,17 +1,25 @@
 package com.openclassrooms.starterjwt.services;
 
+import com.openclassrooms.starterjwt.config.CacheConfig;
 import com.openclassrooms.starterjwt.models.User;
 import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.security.services.UserDetailsServiceImpl;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.transaction.TestTransaction;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -31,10 +39,21 @@ class UserServiceTest {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private UserDetailsServiceImpl userDetailsService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
     private User user;
 
+    private Cache principals;
+
     @BeforeEach
     void setUp() {
+        principals = cacheManager.getCache(CacheConfig.PRINCIPALS);
+        principals.clear();
+
         user = new User(
                 "admin@yoga.fr",
                 "Test",
@@ -78,6 +97,23 @@ class UserServiceTest {
         assertNull(foundUser);
     }
 
+    /**
+     * Tests the behavior of the {@code findAllById} method in the {@code UserService} class
+     * when some of the requested IDs do not exist.
+     */
+    @Test
+    void findAllByIdShouldReturnOnlyExistingUsers() {
+        // Arrange
+        User savedUser = userRepository.save(user);
+
+        // Act
+        List<User> foundUsers = userService.findAllById(List.of(savedUser.getId(), 999L));
+
+        // Assert
+        assertEquals(1, foundUsers.size());
+        assertEquals("admin@yoga.fr", foundUsers.get(0).getEmail());
+    }
+
     /**
      * Tests the behavior of the {@code delete} method in the {@code UserService} class.
      */
@@ -92,4 +128,74 @@ class UserServiceTest {
         // Assert
         assertFalse(userRepository.existsById(savedUser.getId()));
     }
-}
\ No newline at end of file
+
+    /**
+     * Tests that the principal of a user is read once and then served from the cache.
+     */
+    @Test
+    void loadPrincipalByUsernameShouldBeCached() {
+        // Arrange
+        userRepository.save(user);
+
+        // Act
+        UserDetails first = userDetailsService.loadPrincipalByUsername("admin@yoga.fr");
+        UserDetails second = userDetailsService.loadPrincipalByUsername("admin@yoga.fr");
+
+        // Assert
+        assertSame(first, second);
+        assertNotNull(principals.get("admin@yoga.fr"));
+        principals.clear();
+    }
+
+    /**
+     * Tests that deleting a user evicts its cached principal once the deletion is committed.
+     */
+    @Test
+    void deleteUserShouldEvictCachedPrincipal() {
+        // Arrange
+        User savedUser = userRepository.save(user);
+        TestTransaction.flagForCommit();
+        TestTransaction.end();
+
+        userDetailsService.loadPrincipalByUsername("admin@yoga.fr");
+        assertNotNull(principals.get("admin@yoga.fr"));
+
+        // Act
+        userService.delete(savedUser.getId());
+
+        // Assert
+        assertNull(principals.get("admin@yoga.fr"));
+    }
+
+    /**
+     * Tests that a deleted user is no longer served by the second-level cache
+     */
+    @Test
+    void deleteUserShouldNotBeServedFromSecondLevelCache() {
+        // Arrange
+        User savedUser = userRepository.save(user);
+        TestTransaction.flagForCommit();
+        TestTransaction.end();
+
+        assertNotNull(userService.findById(savedUser.getId()));
+
+        // Act
+        userService.delete(savedUser.getId());
+
+        // Assert
+        assertNull(userService.findById(savedUser.getId()));
+    }
+
+    /**
+     * Tests that the database rejects a second user with the same email
+     */
+    @Test
+    void saveUserWithDuplicateEmailShouldBeRejected() {
+        // Arrange
+        userRepository.saveAndFlush(new User("duplicate@yoga.fr", "Test", "User", "password123!", false));
+
+        // Act & Assert
+        assertThrows(DataIntegrityViolationException.class, () ->
+                userRepository.saveAndFlush(new User("duplicate@yoga.fr", "Other", "User", "password123!", false)));
+    }
+}